@@ -0,0 +1,13 @@
+CREATE TABLE s3_deletion
+(
+    id              UUID          NOT NULL,
+    s3_key          VARCHAR(255)  NOT NULL,
+    attempts        INTEGER       NOT NULL,
+    last_error      VARCHAR(1024),
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_s3_deletion PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_s3_deletion_next_attempt_at ON s3_deletion (next_attempt_at);
+CREATE INDEX idx_s3_deletion_s3_key ON s3_deletion (s3_key);
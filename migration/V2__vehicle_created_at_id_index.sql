@@ -0,0 +1 @@
+CREATE INDEX idx_vehicle_created_at_id ON vehicle (created_at, id);
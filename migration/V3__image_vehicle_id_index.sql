@@ -0,0 +1 @@
+CREATE INDEX idx_image_vehicle_id ON image (vehicle_id);
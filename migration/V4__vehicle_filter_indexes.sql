@@ -0,0 +1,3 @@
+CREATE INDEX idx_vehicle_price_id ON vehicle (price, id);
+CREATE INDEX idx_vehicle_model_year_id ON vehicle (model_year, id);
+CREATE INDEX idx_vehicle_horsepower ON vehicle (horsepower);
@@ -0,0 +1,2 @@
+CREATE INDEX idx_vehicle_transmission_drivetrain_created_at_id ON vehicle (transmission, drivetrain, created_at, id);
+CREATE INDEX idx_vehicle_transmission_drivetrain_price_id ON vehicle (transmission, drivetrain, price, id);
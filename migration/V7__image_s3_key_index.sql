@@ -0,0 +1 @@
+CREATE INDEX idx_image_s3_key ON image (s3_key);
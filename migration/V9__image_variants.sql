@@ -0,0 +1 @@
+ALTER TABLE image ADD COLUMN variants VARCHAR(1024);
@@ -0,0 +1,85 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.VehicleCatalogApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database and the in-memory S3 client.
+ */
+final class BenchmarkApplication {
+    private static final int INSERT_BATCH_SIZE = 1_000;
+    private static final String[] TRANSMISSIONS = {"MANUAL", "AUTOMATIC"};
+    private static final String[] DRIVETRAINS = {"FWD", "RWD", "AWD"};
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        // Presigning image URLs only needs some credentials to sign with
+        if (System.getProperty("aws.accessKeyId") == null) {
+            System.setProperty("aws.accessKeyId", "benchmark");
+            System.setProperty("aws.secretAccessKey", "benchmark");
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "--spring.h2.console.enabled=false",
+                // The in-memory client keeps sizes only, so there is nothing to download and resize
+                "--xyz.bnour.vehicle-catalog.image-variants.enabled=false",
+                "--logging.level.root=WARN"));
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+
+        return new SpringApplicationBuilder(VehicleCatalogApplication.class, InMemoryS3Config.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Inserts vehicles, each with the given number of images, through plain JDBC batches and returns their ids.
+     */
+    static List<UUID> seed(ConfigurableApplicationContext context, int vehicles, int imagesPerVehicle) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> vehicleIds = new ArrayList<>(vehicles);
+        List<Object[]> vehicleRows = new ArrayList<>(INSERT_BATCH_SIZE);
+        List<Object[]> imageRows = new ArrayList<>(INSERT_BATCH_SIZE * imagesPerVehicle);
+
+        for (int i = 0; i < vehicles; i++) {
+            UUID vehicleId = UUID.randomUUID();
+            Timestamp createdAt = Timestamp.valueOf(now.minusSeconds(i));
+            vehicleIds.add(vehicleId);
+            vehicleRows.add(new Object[]{vehicleId, "Golf " + i, i % 2 == 0 ? "GTI" : "Variant", 100 + i % 300,
+                    2000 + i % 26, TRANSMISSIONS[i % TRANSMISSIONS.length], DRIVETRAINS[i % DRIVETRAINS.length],
+                    BigDecimal.valueOf(15_000 + i % 50_000), createdAt, createdAt});
+            for (int j = 0; j < imagesPerVehicle; j++) {
+                String s3Key = vehicleId + "-" + j + ".jpg";
+                imageRows.add(new Object[]{UUID.randomUUID(), s3Key, vehicleId, createdAt, createdAt});
+            }
+
+            if (vehicleRows.size() == INSERT_BATCH_SIZE || i == vehicles - 1) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO vehicle (id, name, model, horsepower, model_year, transmission, drivetrain,
+                                             price, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """, vehicleRows);
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO image (id, s3_key, vehicle_id, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?)
+                        """, imageRows);
+                vehicleRows.clear();
+                imageRows.clear();
+            }
+        }
+        return vehicleIds;
+    }
+}
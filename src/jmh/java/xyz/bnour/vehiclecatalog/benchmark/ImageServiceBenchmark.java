@@ -0,0 +1,69 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.service.ImageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-image upload through {@link ImageService#create}, with S3 replaced by an in-memory client so the numbers
+ * cover validation, hashing, the limit check, the write transaction and cache eviction. {@code createNew} uploads
+ * distinct content every time, {@code createDuplicate} the same content, which is only looked up and referenced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageServiceBenchmark {
+    private static final int VEHICLES = 10_000;
+
+    @Param({"204800"})
+    private int imageSize;
+
+    private ConfigurableApplicationContext context;
+    private ImageService imageService;
+    private byte[] content;
+    private MockMultipartFile image;
+    private List<String> vehicleIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start("image-service",
+                "xyz.bnour.vehicle-catalog.max-num-of-images-per-vehicle=" + Integer.MAX_VALUE);
+        // Spread uploads over many vehicles so the per-vehicle image count stays realistic as the run goes on
+        vehicleIds = BenchmarkApplication.seed(context, VEHICLES, 0).stream().map(UUID::toString).toList();
+        imageService = context.getBean(ImageService.class);
+        content = new byte[imageSize];
+        image = new MockMultipartFile("image", "golf.jpg", "image/jpeg", content);
+        imageService.create(vehicleIds.get(0), image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ImageResponse createNew() throws IOException {
+        byte[] newContent = content.clone();
+        ByteBuffer.wrap(newContent).putLong(++next);
+        return imageService.create(vehicleIds.get(next % VEHICLES),
+                new MockMultipartFile("image", "golf.jpg", "image/jpeg", newContent));
+    }
+
+    @Benchmark
+    public ImageResponse createDuplicate() throws IOException {
+        String vehicleId = vehicleIds.get(next++ % VEHICLES);
+        return imageService.create(vehicleId, image);
+    }
+}
@@ -0,0 +1,69 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replaces the AWS client with one that keeps object sizes in memory, so benchmarks measure the app and not the
+ * network. Deliberately not a {@code @Configuration}: it is only picked up when passed to the application builder.
+ */
+class InMemoryS3Config {
+
+    @Bean
+    @Primary
+    S3Client inMemoryS3Client() {
+        return new InMemoryS3Client();
+    }
+
+    static class InMemoryS3Client implements S3Client {
+        private final Map<String, Long> objects = new ConcurrentHashMap<>();
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            try (InputStream content = body.contentStreamProvider().newStream()) {
+                objects.put(request.key(), content.transferTo(OutputStream.nullOutputStream()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return PutObjectResponse.builder().eTag(request.key()).build();
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            objects.remove(request.key());
+            return DeleteObjectResponse.builder().build();
+        }
+
+        @Override
+        public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+            request.delete().objects().forEach(object -> objects.remove(object.key()));
+            return DeleteObjectsResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+            objects.clear();
+        }
+    }
+
+}
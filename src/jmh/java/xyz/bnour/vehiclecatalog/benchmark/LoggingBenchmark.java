@@ -0,0 +1,62 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.controller.VehicleController;
+import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /vehicles/{id} through the controller with the console appender in sync or async mode. Application logging at
+ * DEBUG emits the per-request lines that used to be INFO, INFO is what production logs now. Output goes to a null
+ * stream, so this measures encoding and appender overhead rather than terminal speed; run with {@code -prof gc}
+ * for allocation per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    @Param({"sync", "async"})
+    private String mode;
+
+    @Param({"DEBUG", "INFO"})
+    private String applicationLogLevel;
+
+    private PrintStream stdout;
+    private ConfigurableApplicationContext context;
+    private VehicleController vehicleController;
+    private String vehicleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        context = BenchmarkApplication.start("logging-" + mode + "-" + applicationLogLevel,
+                "xyz.bnour.vehicle-catalog.logging.mode=" + mode,
+                "logging.level.xyz.bnour.vehiclecatalog=" + applicationLogLevel);
+        vehicleId = BenchmarkApplication.seed(context, 100, 2).get(50).toString();
+        vehicleController = context.getBean(VehicleController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public ResponseEntity<VehicleResponse> getVehicleById() {
+        return vehicleController.getById(vehicleId, new ServletWebRequest(new MockHttpServletRequest()));
+    }
+}
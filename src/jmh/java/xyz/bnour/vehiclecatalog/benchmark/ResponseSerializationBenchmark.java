@@ -0,0 +1,84 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building response DTOs and writing them with the same Jackson setup Spring MVC uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    private Image image;
+    private VehicleDetails vehicleDetails;
+    private List<ImageResponse> images;
+    private VehicleResponse vehicleResponse;
+    private PageResponse<VehicleResponse> page;
+    private ObjectWriter vehicleWriter;
+    private ObjectWriter pageWriter;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(UUID.randomUUID());
+
+        image = new Image(UUID.randomUUID(), "golf.jpg", vehicle, null, now, now);
+        vehicleDetails = new VehicleDetails(vehicle.getId(), "Golf", "GTI", 245, 380, 2024, "MANUAL", "FWD",
+                new BigDecimal("45000.00"), now, now);
+        ImageResponse imageResponse = new ImageResponse(image).withUrl("https://cdn.example.com/golf.jpg");
+        images = List.of(imageResponse, imageResponse);
+        vehicleResponse = new VehicleResponse(vehicleDetails, images);
+
+        List<VehicleResponse> items = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(vehicleResponse);
+        }
+        page = new PageResponse<>(items, "bmV4dC1wYWdl");
+
+        Jackson2ObjectMapperBuilder mapperBuilder = Jackson2ObjectMapperBuilder.json();
+        vehicleWriter = mapperBuilder.build().writerFor(VehicleResponse.class);
+        pageWriter = mapperBuilder.build().writerFor(PageResponse.class);
+    }
+
+    @Benchmark
+    public ImageResponse imageResponseFromEntity() {
+        return new ImageResponse(image);
+    }
+
+    @Benchmark
+    public VehicleResponse vehicleResponse() {
+        return new VehicleResponse(vehicleDetails, images);
+    }
+
+    @Benchmark
+    public byte[] serializeVehicleResponse() throws JsonProcessingException {
+        return vehicleWriter.writeValueAsBytes(vehicleResponse);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+}
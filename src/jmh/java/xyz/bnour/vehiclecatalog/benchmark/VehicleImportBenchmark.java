@@ -0,0 +1,80 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.response.VehicleImportReport;
+import xyz.bnour.vehiclecatalog.service.VehicleImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full import of {@code rows} vehicles through {@link VehicleImportService} against H2, per format and batch
+ * size. Each iteration inserts into the same database, so later iterations run against a growing table.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VehicleImportBenchmark {
+    private static final String[] TRANSMISSIONS = {"MANUAL", "AUTOMATIC"};
+    private static final String[] DRIVETRAINS = {"FWD", "RWD", "AWD"};
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"NDJSON", "CSV"})
+    private VehicleImportService.Format format;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private VehicleImportService vehicleImportService;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("vehicle-import-" + format + "-" + batchSize,
+                "xyz.bnour.vehicle-catalog.import.batch-size=" + batchSize);
+        vehicleImportService = context.getBean(VehicleImportService.class);
+
+        StringBuilder builder = new StringBuilder(rows * 128);
+        if (format == VehicleImportService.Format.CSV) {
+            builder.append("name,model,horsepower,modelYear,transmission,drivetrain,price\n");
+        }
+        for (int i = 0; i < rows; i++) {
+            String name = "Golf " + i;
+            String model = i % 2 == 0 ? "GTI" : "Variant";
+            int horsepower = 100 + i % 300;
+            int modelYear = 2000 + i % 26;
+            String transmission = TRANSMISSIONS[i % TRANSMISSIONS.length];
+            String drivetrain = DRIVETRAINS[i % DRIVETRAINS.length];
+            int price = 15_000 + i % 50_000;
+            if (format == VehicleImportService.Format.CSV) {
+                builder.append(String.join(",", name, model, String.valueOf(horsepower), String.valueOf(modelYear),
+                        transmission, drivetrain, String.valueOf(price)));
+            } else {
+                builder.append("{\"name\":\"").append(name).append("\",\"model\":\"").append(model)
+                        .append("\",\"horsepower\":").append(horsepower).append(",\"modelYear\":").append(modelYear)
+                        .append(",\"transmission\":\"").append(transmission).append("\",\"drivetrain\":\"")
+                        .append(drivetrain).append("\",\"price\":").append(price).append('}');
+            }
+            builder.append('\n');
+        }
+        body = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public VehicleImportReport importVehicles() {
+        return vehicleImportService.importVehicles(new ByteArrayInputStream(body), format);
+    }
+}
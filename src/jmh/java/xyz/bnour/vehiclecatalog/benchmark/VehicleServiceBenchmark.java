@@ -0,0 +1,85 @@
+package xyz.bnour.vehiclecatalog.benchmark;
+
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import xyz.bnour.vehiclecatalog.service.VehicleService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link VehicleService} against H2 at growing catalog sizes, two images per vehicle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VehicleServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int vehicles;
+
+    private ConfigurableApplicationContext context;
+    private VehicleService vehicleService;
+    private Cache vehicleCache;
+    private VehicleFilter noFilter;
+    private VehicleFilter priceFilter;
+    private String vehicleId;
+    private String secondPageToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("vehicle-service-" + vehicles);
+        List<UUID> vehicleIds = BenchmarkApplication.seed(context, vehicles, 2);
+
+        vehicleService = context.getBean(VehicleService.class);
+        vehicleCache = context.getBean(CacheManager.class).getCache(CacheConfig.VEHICLES_CACHE);
+        noFilter = new VehicleFilter();
+        priceFilter = new VehicleFilter();
+        priceFilter.setMinPrice(new BigDecimal("20000"));
+        priceFilter.setMaxPrice(new BigDecimal("30000"));
+        vehicleId = vehicleIds.get(vehicleIds.size() / 2).toString();
+        secondPageToken = vehicleService.getAll(noFilter, null, null, 20).getNextPageToken();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResponse<VehicleResponse> getAllFirstPage() {
+        return vehicleService.getAll(noFilter, null, null, 20);
+    }
+
+    @Benchmark
+    public PageResponse<VehicleResponse> getAllNextPage() {
+        return vehicleService.getAll(noFilter, null, secondPageToken, 20);
+    }
+
+    @Benchmark
+    public PageResponse<VehicleResponse> getAllFilteredByPrice() {
+        return vehicleService.getAll(priceFilter, "price,asc", null, 20);
+    }
+
+    @Benchmark
+    public VehicleResponse getByIdCached() {
+        return vehicleService.getById(vehicleId);
+    }
+
+    @Benchmark
+    public VehicleResponse getByIdUncached() {
+        vehicleCache.clear();
+        return vehicleService.getById(vehicleId);
+    }
+}
@@ -0,0 +1,74 @@
+package xyz.bnour.vehiclecatalog.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-endpoint latencies and reports nearest-rank percentiles.
+ */
+class LatencyRecorder {
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean success) {
+        latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+        LongAdder endpointErrors = errors.computeIfAbsent(endpoint, key -> new LongAdder());
+        if (!success) {
+            endpointErrors.increment();
+        }
+    }
+
+    List<EndpointStats> summarize(double seconds) {
+        List<EndpointStats> stats = new ArrayList<>();
+        new TreeMap<>(latencies).forEach((endpoint, samples) -> {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            stats.add(new EndpointStats(endpoint, sorted.length, errors.get(endpoint).sum(), sorted.length / seconds,
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), sorted[sorted.length - 1]));
+        });
+        return stats;
+    }
+
+    static void print(List<EndpointStats> stats, PrintStream out) {
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        stats.forEach(stat -> out.printf(Locale.ROOT, "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                stat.endpoint(), stat.requests(), stat.errors(), stat.throughput(),
+                millis(stat.p50()), millis(stat.p95()), millis(stat.p99()), millis(stat.max())));
+    }
+
+    static void writeJson(List<EndpointStats> stats, Path file) throws IOException {
+        List<String> entries = stats.stream()
+                .map(stat -> String.format(Locale.ROOT,
+                        "{\"endpoint\":\"%s\",\"requests\":%d,\"errors\":%d,\"throughput\":%.2f,"
+                                + "\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                        stat.endpoint(), stat.requests(), stat.errors(), stat.throughput(),
+                        millis(stat.p50()), millis(stat.p95()), millis(stat.p99()), millis(stat.max())))
+                .toList();
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "[" + String.join(",\n", entries) + "]\n");
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    record EndpointStats(String endpoint, long requests, long errors, double throughput,
+                         long p50, long p95, long p99, long max) {
+    }
+
+}
@@ -0,0 +1,217 @@
+package xyz.bnour.vehiclecatalog.loadtest;
+
+import xyz.bnour.vehiclecatalog.VehicleCatalogApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the app in-process against H2 (or whatever {@code -Dspring.datasource.*} points to) and an embedded S3 stub
+ * (or {@code -Dloadtest.s3-endpoint}, e.g. the MinIO from docker-compose), then drives a mixed read/upload workload
+ * over HTTP and reports p50/p95/p99 per endpoint. Runs fully offline.
+ */
+public final class LoadTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String BOUNDARY = "loadtest-" + UUID.randomUUID();
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final String baseUrl;
+    private final byte[] imageContent;
+    private final List<String> vehicleIds = new ArrayList<>();
+    private final List<String> imageIds = new ArrayList<>();
+
+    private LoadTest(String baseUrl, int imageSize) {
+        this.baseUrl = baseUrl;
+        this.imageContent = new byte[imageSize];
+        ThreadLocalRandom.current().nextBytes(imageContent);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int vehicles = Integer.getInteger("loadtest.vehicles", 200);
+        int imageSize = Integer.getInteger("loadtest.image-size", 200 * 1024);
+        List<String> threadModes = List.of(System.getProperty("loadtest.thread-modes", "platform").split(","));
+        Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        String externalS3Endpoint = System.getProperty("loadtest.s3-endpoint");
+
+        setPropertyIfAbsent("aws.accessKeyId", "loadtest");
+        setPropertyIfAbsent("aws.secretAccessKey", "loadtest");
+
+        for (String threadMode : threadModes) {
+            boolean virtualThreads = switch (threadMode.trim()) {
+                case "platform" -> false;
+                case "virtual" -> true;
+                default -> throw new IllegalArgumentException("Unknown thread mode: " + threadMode);
+            };
+            if (virtualThreads && Runtime.version().feature() < 21) {
+                System.out.printf("Java %d has no virtual threads, the virtual run falls back to platform threads%n",
+                        Runtime.version().feature());
+            }
+            // A single mode keeps the plain report name, several get one report each
+            Path modeReport = threadModes.size() == 1 ? report : report.resolveSibling(
+                    report.getFileName().toString().replace(".json", "-" + threadMode.trim() + ".json"));
+            runOnce(virtualThreads, externalS3Endpoint, durationSeconds, concurrency, vehicles, imageSize, modeReport);
+        }
+    }
+
+    private static void runOnce(boolean virtualThreads, String externalS3Endpoint, int durationSeconds,
+                                int concurrency, int vehicles, int imageSize, Path report) throws Exception {
+        S3Stub s3Stub = externalS3Endpoint == null ? new S3Stub(concurrency) : null;
+        String s3Endpoint = s3Stub != null ? s3Stub.endpoint() : externalS3Endpoint;
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(VehicleCatalogApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--aws.s3.endpoint=" + s3Endpoint,
+                "--aws.s3.path-style-access=true",
+                "--xyz.bnour.vehicle-catalog.max-num-of-images-per-vehicle=" + Integer.MAX_VALUE,
+                // Uploads are random bytes and the stub doesn't keep content, so there is nothing to resize
+                "--xyz.bnour.vehicle-catalog.image-variants.enabled=false",
+                "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            LoadTest loadTest = new LoadTest("http://localhost:" + port, imageSize);
+
+            System.out.printf("Seeding %d vehicles against S3 at %s, %s threads%n", vehicles, s3Endpoint,
+                    virtualThreads ? "virtual" : "platform");
+            loadTest.seed(vehicles);
+            System.out.printf("Running %d workers for %ds%n", concurrency, durationSeconds);
+            loadTest.run(concurrency, Duration.ofSeconds(durationSeconds));
+
+            List<LatencyRecorder.EndpointStats> stats = loadTest.recorder.summarize(durationSeconds);
+            LatencyRecorder.print(stats, System.out);
+            LatencyRecorder.writeJson(stats, report);
+            System.out.println("Report written to " + report.toAbsolutePath());
+        } finally {
+            if (s3Stub != null) {
+                s3Stub.close();
+            }
+        }
+    }
+
+    private void seed(int vehicles) throws IOException, InterruptedException {
+        for (int i = 0; i < vehicles; i++) {
+            String body = """
+                    {"name": "Golf %d", "model": "%s", "horsepower": %d, "modelYear": %d,
+                     "transmission": "%s", "drivetrain": "FWD", "price": %d}
+                    """.formatted(i, i % 2 == 0 ? "GTI" : "Variant", 110 + i % 200, 2005 + i % 20,
+                    i % 3 == 0 ? "MANUAL" : "AUTOMATIC", 18_000 + i * 37 % 40_000);
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/vehicles"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            vehicleIds.add(MAPPER.readTree(response.body()).get("id").asText());
+        }
+        for (String vehicleId : vehicleIds.subList(0, Math.min(vehicles, 50))) {
+            JsonNode image = MAPPER.readTree(send(uploadRequest(vehicleId)).body());
+            imageIds.add(image.get("id").asText());
+        }
+    }
+
+    private void run(int concurrency, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    runRandomRequest();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 35% listing, 25% vehicle by id, 10% search, 10% image by id, 5% filtered listing, 15% image upload.
+     */
+    private void runRandomRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String vehicleId = vehicleIds.get(random.nextInt(vehicleIds.size()));
+        int roll = random.nextInt(100);
+
+        if (roll < 35) {
+            timed("GET /vehicles", HttpRequest.newBuilder(uri("/vehicles?size=20")).GET());
+        } else if (roll < 60) {
+            timed("GET /vehicles/{id}", HttpRequest.newBuilder(uri("/vehicles/" + vehicleId)).GET());
+        } else if (roll < 70) {
+            timed("GET /vehicles/search", HttpRequest.newBuilder(uri("/vehicles/search?q=golf%20gt")).GET());
+        } else if (roll < 80) {
+            String imageId = imageIds.get(random.nextInt(imageIds.size()));
+            timed("GET /images/{id}", HttpRequest.newBuilder(uri("/images/" + imageId)).GET());
+        } else if (roll < 85) {
+            timed("GET /vehicles?filter", HttpRequest.newBuilder(
+                    uri("/vehicles?size=20&maxPrice=30000&transmission=MANUAL&sort=price,asc")).GET());
+        } else {
+            timed("POST /images/vehicles/{id}", uploadRequest(vehicleId));
+        }
+    }
+
+    private void timed(String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 400;
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(endpoint, System.nanoTime() - start, success);
+    }
+
+    private HttpRequest.Builder uploadRequest(String vehicleId) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(imageContent.length + 256);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"golf.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        // A random prefix keeps every upload distinct, otherwise all but the first would be deduplicated
+        body.writeBytes(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(imageContent);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(uri("/images/vehicles/" + vehicleId))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding request failed with " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static void setPropertyIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null && System.getenv(key.equals("aws.accessKeyId")
+                ? "AWS_ACCESS_KEY_ID" : "AWS_SECRET_ACCESS_KEY") == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package xyz.bnour.vehiclecatalog.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal path-style S3 endpoint on the JDK HTTP server: enough of PutObject, DeleteObject and the multipart
+ * upload calls for the app to run against it. Object bodies are drained and only their sizes are kept.
+ */
+class S3Stub implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Long> objects = new ConcurrentHashMap<>();
+
+    S3Stub(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    int objectCount() {
+        return objects.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery() == null ? "" : exchange.getRequestURI().getQuery();
+            long size = drain(exchange.getRequestBody());
+
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    if (!query.contains("partNumber=")) {
+                        objects.put(path, size);
+                    }
+                    exchange.getResponseHeaders().add("ETag", "\"" + UUID.randomUUID() + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "POST" -> {
+                    if (query.equals("delete")) {
+                        // Answers a quiet DeleteObjects as if every key was deleted, without parsing the keys
+                        respondXml(exchange, "<DeleteResult/>");
+                    } else if (query.contains("uploads")) {
+                        respondXml(exchange, "<InitiateMultipartUploadResult><UploadId>" + UUID.randomUUID()
+                                + "</UploadId></InitiateMultipartUploadResult>");
+                    } else {
+                        objects.put(path, size);
+                        respondXml(exchange, "<CompleteMultipartUploadResult><ETag>\"" + UUID.randomUUID()
+                                + "\"</ETag></CompleteMultipartUploadResult>");
+                    }
+                }
+                case "DELETE" -> {
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "HEAD" -> {
+                    Long objectSize = objects.get(path);
+                    if (objectSize != null) {
+                        exchange.getResponseHeaders().add("Content-Length", Long.toString(objectSize));
+                    }
+                    exchange.sendResponseHeaders(objectSize == null ? 404 : 200, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void respondXml(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+
+    private long drain(InputStream body) throws IOException {
+        try (body) {
+            return body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.bnour.vehiclecatalog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String VEHICLES_CACHE = "vehicles";
+
+    @Value("${xyz.bnour.vehicle-catalog.cache.vehicles.maximum-size}")
+    private Long vehiclesMaximumSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.cache.vehicles.expire-after-write}")
+    private Duration vehiclesExpireAfterWrite;
+
+    /**
+     * Evictions are deferred until the surrounding transaction commits, so a concurrent read
+     * can't repopulate the cache with the state that is about to be replaced.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(VEHICLES_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(vehiclesMaximumSize)
+                .expireAfterWrite(vehiclesExpireAfterWrite)
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
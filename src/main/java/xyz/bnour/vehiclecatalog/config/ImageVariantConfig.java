@@ -0,0 +1,34 @@
+package xyz.bnour.vehiclecatalog.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class ImageVariantConfig {
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.pool-size}")
+    private Integer poolSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.queue-capacity}")
+    private Integer queueCapacity;
+
+    /**
+     * Decoding and encoding is CPU bound and holds a whole decoded image in memory, so this stays a small
+     * platform thread pool even with virtual threads enabled. A full queue rejects the task instead of running
+     * it on the request thread; the backfill picks those images up later.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-variant-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
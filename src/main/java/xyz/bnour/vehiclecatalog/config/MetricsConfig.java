@@ -0,0 +1,27 @@
+package xyz.bnour.vehiclecatalog.config;
+
+import xyz.bnour.vehiclecatalog.metrics.RequestStatementCounter;
+import xyz.bnour.vehiclecatalog.metrics.StatementCountFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service, repository, HTTP and Hikari timers come from Spring Boot; this adds the per-request SQL statement count.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestStatementCounter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilter(MeterRegistry meterRegistry) {
+        return new FilterRegistrationBean<>(new StatementCountFilter(meterRegistry));
+    }
+}
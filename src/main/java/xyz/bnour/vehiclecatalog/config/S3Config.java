@@ -1,10 +1,23 @@
 package xyz.bnour.vehiclecatalog.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class S3Config {
@@ -12,10 +25,103 @@ public class S3Config {
     @Value("${aws.s3.region}")
     private String region;
 
+    @Value("${aws.s3.endpoint}")
+    private String endpoint;
+
+    @Value("${aws.s3.path-style-access}")
+    private Boolean pathStyleAccess;
+
+    @Value("${aws.s3.http.max-connections}")
+    private Integer maxConnections;
+
+    @Value("${aws.s3.http.connection-acquisition-timeout}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${aws.s3.transfer.pool-size}")
+    private Integer transferPoolSize;
+
+    @Value("${aws.s3.transfer.queue-capacity}")
+    private Integer transferQueueCapacity;
+
+    @Value("${aws.s3.upload.pool-size}")
+    private Integer uploadPoolSize;
+
+    @Value("${aws.s3.upload.queue-capacity}")
+    private Integer uploadQueueCapacity;
+
     @Bean
     public S3Client s3Client() {
-        return S3Client.builder()
+        // The connection pool waits on a ReentrantLock, so virtual threads queueing for a connection don't pin
+        S3ClientBuilder builder = S3Client.builder()
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout))
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess);
+
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Signs URLs for the same bucket, region and endpoint as the client, so browsers talk to the same S3 the app does.
+     */
+    @Bean
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
                 .region(Region.of(region))
-                .build();
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyleAccess)
+                        .build());
+
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Bounded pool for S3 transfers running alongside the request thread, such as multipart parts.
+     * When it's saturated the submitting thread runs the transfer itself, which throttles the producer.
+     */
+    @Bean
+    public AsyncTaskExecutor s3TransferExecutor(Environment environment) {
+        return boundedExecutor("s3-transfer-", transferPoolSize, transferQueueCapacity, environment);
+    }
+
+    /**
+     * Bounded pool for whole-file uploads of a batch request. Kept apart from the transfer pool so that
+     * a large file in a batch can still fan its parts out without waiting on the pool it is running on.
+     */
+    @Bean
+    public AsyncTaskExecutor s3UploadExecutor(Environment environment) {
+        return boundedExecutor("s3-upload-", uploadPoolSize, uploadQueueCapacity, environment);
+    }
+
+    /**
+     * With virtual threads enabled every task gets its own virtual thread, and the pool size turns into a
+     * concurrency limit that blocks the submitter once reached, the same back-pressure as running on the caller.
+     */
+    private AsyncTaskExecutor boundedExecutor(String threadNamePrefix, int poolSize, int queueCapacity,
+                                              Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(poolSize);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
     }
 }
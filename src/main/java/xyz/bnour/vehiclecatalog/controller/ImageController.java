@@ -1,12 +1,19 @@
 package xyz.bnour.vehiclecatalog.controller;
 
+import xyz.bnour.vehiclecatalog.request.ImageUploadConfirmation;
+import xyz.bnour.vehiclecatalog.request.ImageUploadUrlRequest;
 import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ImageUploadResult;
+import xyz.bnour.vehiclecatalog.response.ImageUploadUrl;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
 import xyz.bnour.vehiclecatalog.service.ImageService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -21,17 +28,22 @@ public class ImageController {
 
     @GetMapping
     public ResponseEntity<List<ImageResponse>> getAll() {
-        log.info("GET /images - Fetching all images");
+        log.debug("GET /images - Fetching all images");
         List<ImageResponse> images = imageService.getAll();
-        log.info("GET /images - Returning {} images", images.size());
+        log.debug("GET /images - Returning {} images", images.size());
         return ResponseEntity.ok(images);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ImageResponse> getById(@PathVariable String id) {
-        log.info("GET /images/{} - Fetching image by ID", id);
+    public ResponseEntity<ImageResponse> getById(@PathVariable String id, WebRequest request) {
+        log.debug("GET /images/{} - Fetching image by ID", id);
+        ResourceVersion version = imageService.getVersion(id);
+        if (request.checkNotModified(version.getEtag(), version.getLastModified())) {
+            log.debug("GET /images/{} - Not modified", id);
+            return null;
+        }
         ImageResponse image = imageService.getById(id);
-        log.info("GET /images/{} - Successfully retrieved image for vehicle: {}", id, image.getVehicleId());
+        log.debug("GET /images/{} - Successfully retrieved image for vehicle: {}", id, image.getVehicleId());
         return ResponseEntity.ok(image);
     }
 
@@ -39,12 +51,11 @@ public class ImageController {
     public ResponseEntity<ImageResponse> create(
             @PathVariable String vehicleId,
             @RequestParam("image") MultipartFile image) {
-        log.info("POST /images/vehicles/{} - Uploading image: {}, size: {} bytes", 
+        log.debug("POST /images/vehicles/{} - Uploading image: {}, size: {} bytes", 
                 vehicleId, image.getOriginalFilename(), image.getSize());
         try {
-            validateImageFile(image);
             ImageResponse createdImage = imageService.create(vehicleId, image);
-            log.info("POST /images/vehicles/{} - Successfully uploaded image with ID: {}", 
+            log.debug("POST /images/vehicles/{} - Successfully uploaded image with ID: {}", 
                     vehicleId, createdImage.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdImage);
         } catch (IOException e) {
@@ -53,16 +64,48 @@ public class ImageController {
         }
     }
 
+    @PostMapping("/vehicles/{vehicleId}/batch")
+    public ResponseEntity<List<ImageUploadResult>> createBatch(
+            @PathVariable String vehicleId,
+            @RequestParam("images") List<MultipartFile> images) {
+        log.debug("POST /images/vehicles/{}/batch - Uploading {} images", vehicleId, images.size());
+        List<ImageUploadResult> results = imageService.createBatch(vehicleId, images);
+        boolean allCreated = results.stream()
+                .allMatch(result -> result.getStatus() == ImageUploadResult.Status.CREATED);
+        log.debug("POST /images/vehicles/{}/batch - Processed {} images, all created: {}", vehicleId, results.size(), allCreated);
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    @PostMapping("/vehicles/{vehicleId}/upload-url")
+    public ResponseEntity<ImageUploadUrl> createUploadUrl(
+            @PathVariable String vehicleId,
+            @Valid @RequestBody ImageUploadUrlRequest request) {
+        log.debug("POST /images/vehicles/{}/upload-url - Presigning upload of: {}, size: {} bytes",
+                vehicleId, request.getFilename(), request.getContentLength());
+        ImageUploadUrl uploadUrl = imageService.createUploadUrl(vehicleId, request);
+        log.debug("POST /images/vehicles/{}/upload-url - Presigned key: {}", vehicleId, uploadUrl.getS3Key());
+        return ResponseEntity.ok(uploadUrl);
+    }
+
+    @PostMapping("/vehicles/{vehicleId}/confirm")
+    public ResponseEntity<ImageResponse> confirmUpload(
+            @PathVariable String vehicleId,
+            @Valid @RequestBody ImageUploadConfirmation confirmation) {
+        log.debug("POST /images/vehicles/{}/confirm - Confirming key: {}", vehicleId, confirmation.getS3Key());
+        ImageResponse image = imageService.confirmUpload(vehicleId, confirmation.getS3Key());
+        log.debug("POST /images/vehicles/{}/confirm - Recorded image with ID: {}", vehicleId, image.getId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(image);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ImageResponse> update(
             @PathVariable String id,
             @RequestParam("image") MultipartFile image) {
-        log.info("PUT /images/{} - Updating image with file: {}, size: {} bytes", 
+        log.debug("PUT /images/{} - Updating image with file: {}, size: {} bytes", 
                 id, image.getOriginalFilename(), image.getSize());
         try {
-            validateImageFile(image);
             ImageResponse updatedImage = imageService.update(id, image);
-            log.info("PUT /images/{} - Successfully updated image", id);
+            log.debug("PUT /images/{} - Successfully updated image", id);
             return ResponseEntity.ok(updatedImage);
         } catch (IOException e) {
             log.error("PUT /images/{} - Failed to update image: {}", id, e.getMessage());
@@ -72,27 +115,9 @@ public class ImageController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteById(@PathVariable String id) {
-        log.info("DELETE /images/{} - Deleting image", id);
+        log.debug("DELETE /images/{} - Deleting image", id);
         imageService.deleteById(id);
-        log.info("DELETE /images/{} - Successfully deleted image", id);
+        log.debug("DELETE /images/{} - Successfully deleted image", id);
         return ResponseEntity.noContent().build();
     }
-
-    private void validateImageFile(MultipartFile file) {
-        log.debug("Validating image file: {}, type: {}, size: {} bytes", 
-                file.getOriginalFilename(), file.getContentType(), file.getSize());
-        
-        if (file.isEmpty()) {
-            log.warn("Image validation failed: File is empty");
-            throw new IllegalArgumentException("File cannot be empty");
-        }
-        
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            log.warn("Image validation failed: Invalid content type: {}", contentType);
-            throw new IllegalArgumentException("File must be an image");
-        }
-        
-        log.debug("Image file validation passed");
-    }
 }
@@ -1,63 +1,160 @@
 package xyz.bnour.vehiclecatalog.controller;
 
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.request.VehicleBulkUpdate;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.request.VehicleSelection;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import xyz.bnour.vehiclecatalog.response.VehicleBulkResult;
+import xyz.bnour.vehiclecatalog.response.VehicleImportReport;
 import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import xyz.bnour.vehiclecatalog.service.VehicleImportService;
 import xyz.bnour.vehiclecatalog.service.VehicleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/vehicles")
 @RequiredArgsConstructor
 @Slf4j
 public class VehicleController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final VehicleService vehicleService;
+    private final VehicleImportService vehicleImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<VehicleResponse>> getAll() {
-        log.info("GET /vehicles - Fetching all vehicles");
-        List<VehicleResponse> vehicles = vehicleService.getAll();
-        log.info("GET /vehicles - Returning {} vehicles", vehicles.size());
-        return ResponseEntity.ok(vehicles);
+    public ResponseEntity<PageResponse<VehicleResponse>> getAll(
+            VehicleFilter filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) Integer size) {
+        log.debug("GET /vehicles - Fetching vehicles page, size: {}, sort: {}", size, sort);
+        PageResponse<VehicleResponse> page = vehicleService.getAll(filter, sort, pageToken, size);
+        log.debug("GET /vehicles - Returning {} vehicles, has next page: {}",
+                page.getItems().size(), page.getNextPageToken() != null);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<VehicleResponse>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) Integer size) {
+        log.debug("GET /vehicles/search - Searching vehicles for: {}", q);
+        PageResponse<VehicleResponse> page = vehicleService.search(q, pageToken, size);
+        log.debug("GET /vehicles/search - Returning {} vehicles, has next page: {}",
+                page.getItems().size(), page.getNextPageToken() != null);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.debug("GET /vehicles/export - Streaming vehicle catalog");
+        ObjectWriter writer = objectMapper.writerFor(VehicleResponse.class);
+        StreamingResponseBody body = outputStream -> {
+            long exported = vehicleService.exportAll(vehicle -> writeLine(writer, vehicle, outputStream));
+            outputStream.flush();
+            log.debug("GET /vehicles/export - Streamed {} vehicles", exported);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<VehicleImportReport> importVehicles(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        log.debug("POST /vehicles/import - Importing vehicles from {}", contentType);
+        VehicleImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? VehicleImportService.Format.NDJSON
+                : VehicleImportService.Format.CSV;
+        VehicleImportReport report = vehicleImportService.importVehicles(body, format);
+        log.debug("POST /vehicles/import - Imported {} vehicles, {} rows failed",
+                report.getImported(), report.getFailed());
+        return ResponseEntity.ok(report);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<VehicleResponse> getById(@PathVariable String id) {
-        log.info("GET /vehicles/{} - Fetching vehicle by ID", id);
+    public ResponseEntity<VehicleResponse> getById(@PathVariable String id, WebRequest request) {
+        log.debug("GET /vehicles/{} - Fetching vehicle by ID", id);
+        ResourceVersion version = vehicleService.getVersion(id);
+        if (request.checkNotModified(version.getEtag(), version.getLastModified())) {
+            log.debug("GET /vehicles/{} - Not modified", id);
+            return null;
+        }
         VehicleResponse vehicle = vehicleService.getById(id);
-        log.info("GET /vehicles/{} - Successfully retrieved vehicle: {} {}", id, 
+        log.debug("GET /vehicles/{} - Successfully retrieved vehicle: {} {}", id, 
                 vehicle.getVehicle().getName(), vehicle.getVehicle().getModel());
         return ResponseEntity.ok(vehicle);
     }
 
     @PostMapping
     public ResponseEntity<Vehicle> create(@Valid @RequestBody Vehicle vehicle) {
-        log.info("POST /vehicles - Creating new vehicle: {} {}", vehicle.getName(), vehicle.getModel());
+        log.debug("POST /vehicles - Creating new vehicle: {} {}", vehicle.getName(), vehicle.getModel());
         Vehicle createdVehicle = vehicleService.create(vehicle);
-        log.info("POST /vehicles - Successfully created vehicle with ID: {}", createdVehicle.getId());
+        log.debug("POST /vehicles - Successfully created vehicle with ID: {}", createdVehicle.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(createdVehicle);
     }
 
     @PutMapping
     public ResponseEntity<Vehicle> update(@Valid @RequestBody Vehicle vehicle) {
-        log.info("PUT /vehicles - Updating vehicle with ID: {}", vehicle.getId());
+        log.debug("PUT /vehicles - Updating vehicle with ID: {}", vehicle.getId());
         Vehicle updatedVehicle = vehicleService.update(vehicle);
-        log.info("PUT /vehicles - Successfully updated vehicle: {} {}", 
+        log.debug("PUT /vehicles - Successfully updated vehicle: {} {}", 
                 updatedVehicle.getName(), updatedVehicle.getModel());
         return ResponseEntity.ok(updatedVehicle);
     }
 
+    @PatchMapping
+    public ResponseEntity<VehicleBulkResult> updateAll(@Valid @RequestBody VehicleBulkUpdate bulkUpdate) {
+        log.debug("PATCH /vehicles - Bulk updating vehicles");
+        VehicleBulkResult result = vehicleService.updateAll(bulkUpdate);
+        log.debug("PATCH /vehicles - Successfully updated {} vehicles", result.getVehicles());
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<VehicleBulkResult> deleteAll(@Valid @RequestBody VehicleSelection selection) {
+        log.debug("POST /vehicles/bulk-delete - Bulk deleting vehicles");
+        VehicleBulkResult result = vehicleService.deleteAll(selection);
+        log.debug("POST /vehicles/bulk-delete - Successfully deleted {} vehicles with {} images",
+                result.getVehicles(), result.getImages());
+        return ResponseEntity.ok(result);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteById(@PathVariable String id) {
-        log.info("DELETE /vehicles/{} - Deleting vehicle", id);
+        log.debug("DELETE /vehicles/{} - Deleting vehicle", id);
         vehicleService.deleteById(id);
-        log.info("DELETE /vehicles/{} - Successfully deleted vehicle", id);
+        log.debug("DELETE /vehicles/{} - Successfully deleted vehicle", id);
         return ResponseEntity.noContent().build();
     }
+
+    private void writeLine(ObjectWriter writer, VehicleResponse vehicle, OutputStream outputStream) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(vehicle));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write exported vehicle " + vehicle.getVehicle().getId(), e);
+        }
+    }
 }
@@ -32,11 +32,14 @@ public class Image {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicle_id", nullable = false)
     private Vehicle vehicle;
-    
-    @NotBlank
-    @Column(name = "url", nullable = false)
-    private String url;
 
+    /**
+     * Resized copies, encoded by {@link xyz.bnour.vehiclecatalog.response.ImageVariantResponse#format}.
+     * Null until they have been generated, empty when there is nothing smaller to generate.
+     */
+    @Column(name = "variants", length = 1024)
+    private String variants;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,46 @@
+package xyz.bnour.vehiclecatalog.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox row for an S3 object that may no longer be referenced. It is written in the same transaction that
+ * removes or repoints the image rows, and deleted once the sweeper has removed the object.
+ */
+@Entity
+@Table(name = "s3_deletion")
+@Getter
+@Setter
+@NoArgsConstructor
+public class S3Deletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "s3_key", nullable = false)
+    private String s3Key;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public S3Deletion(String s3Key, LocalDateTime nextAttemptAt) {
+        this.s3Key = s3Key;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+}
@@ -1,5 +1,6 @@
 package xyz.bnour.vehiclecatalog.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -53,6 +54,7 @@ public class Vehicle {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Image> images;
 
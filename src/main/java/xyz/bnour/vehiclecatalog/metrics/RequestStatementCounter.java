@@ -0,0 +1,36 @@
+package xyz.bnour.vehiclecatalog.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.io.Serial;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * Statements prepared outside a counted scope, e.g. on the S3 upload pool or a streaming export, are ignored.
+ * StatementInspector is Serializable; the count lives in a static ThreadLocal, so an instance carries no state.
+ */
+public class RequestStatementCounter implements StatementInspector {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
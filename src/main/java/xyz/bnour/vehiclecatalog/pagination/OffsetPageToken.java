@@ -0,0 +1,34 @@
+package xyz.bnour.vehiclecatalog.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Page token for result sets without a stable sort key, such as ranked search results.
+ * Encodes the number of rows already returned as an opaque, URL-safe string.
+ */
+public final class OffsetPageToken {
+
+    private OffsetPageToken() {
+    }
+
+    public static String encode(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            long offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Negative offset");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package xyz.bnour.vehiclecatalog.pagination;
+
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last vehicle of a page in the {@code (sort key, id)} ordering.
+ * Handed to clients as an opaque, URL-safe page token that also records the sort it was issued for.
+ */
+@Getter
+@AllArgsConstructor
+public class VehicleCursor {
+    private static final String SEPARATOR = "|";
+
+    private final VehicleSort sort;
+    private final Comparable<?> value;
+    private final UUID id;
+
+    public static VehicleCursor after(VehicleSort sort, VehicleDetails vehicle) {
+        return new VehicleCursor(sort, sort.getField().getExtractor().apply(vehicle), vehicle.getId());
+    }
+
+    public String encode() {
+        String formattedValue = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        String raw = String.join(SEPARATOR,
+                sort.getField().name(), sort.getDirection().name(), formattedValue, id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static VehicleCursor decode(String token, VehicleSort expectedSort) {
+        VehicleCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            VehicleSort sort = new VehicleSort(VehicleSort.Field.valueOf(parts[0]), Sort.Direction.valueOf(parts[1]));
+            cursor = new VehicleCursor(sort, sort.getField().getParser().apply(parts[2]), UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+
+        if (!cursor.getSort().equals(expectedSort)) {
+            throw new IllegalArgumentException("Page token was issued for a different sort order: " + token);
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,57 @@
+package xyz.bnour.vehiclecatalog.pagination;
+
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Ordering of a vehicle listing, given by clients as {@code property[,asc|desc]}. Without a direction each field uses
+ * its own default, newest first for {@code createdAt} so that it matches the unsorted listing.
+ * Only non-null, indexed columns are sortable, and the id always breaks ties so that keyset paging stays stable.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class VehicleSort {
+    public static final VehicleSort DEFAULT = new VehicleSort(Field.CREATED_AT, Field.CREATED_AT.getDefaultDirection());
+
+    private final Field field;
+    private final Sort.Direction direction;
+
+    public static VehicleSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return DEFAULT;
+        }
+
+        String[] parts = sort.split(",", 2);
+        Field field = Arrays.stream(Field.values())
+                .filter(candidate -> candidate.getProperty().equals(parts[0].trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot sort vehicles by: " + parts[0]));
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromString(parts[1].trim())
+                : field.getDefaultDirection();
+        return new VehicleSort(field, direction);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Field {
+        CREATED_AT("createdAt", Sort.Direction.DESC, VehicleDetails::getCreatedAt, LocalDateTime::parse),
+        PRICE("price", Sort.Direction.ASC, VehicleDetails::getPrice, BigDecimal::new),
+        MODEL_YEAR("modelYear", Sort.Direction.ASC, VehicleDetails::getModelYear, Integer::valueOf);
+
+        private final String property;
+        private final Sort.Direction defaultDirection;
+        private final Function<VehicleDetails, Comparable<?>> extractor;
+        private final Function<String, Comparable<?>> parser;
+    }
+}
@@ -1,13 +1,83 @@
 package xyz.bnour.vehiclecatalog.repository;
 
 import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, UUID> {
-    List<Image> findAllByVehicleId(UUID vehicleId);
+    String SELECT_IMAGE_RESPONSE = """
+            select new xyz.bnour.vehiclecatalog.response.ImageResponse(
+                i.id, i.s3Key, i.vehicle.id, i.variants, i.createdAt, i.updatedAt)
+            from Image i
+            """;
+
+    long countByVehicleId(UUID vehicleId);
+
+    /**
+     * Objects are keyed by content and shared between images, so this is the object's reference count.
+     */
+    long countByS3Key(String s3Key);
+
+    Optional<Image> findFirstByS3Key(String s3Key);
+
+    @Query("select distinct i.s3Key from Image i where i.s3Key in :s3Keys")
+    List<String> findReferencedS3Keys(@Param("s3Keys") Collection<String> s3Keys);
+
+    @Query("select i.s3Key from Image i where i.vehicle.id in :vehicleIds")
+    List<String> findS3KeysByVehicleIdIn(@Param("vehicleIds") Collection<UUID> vehicleIds);
+
+    @Modifying
+    @Query("delete from Image i where i.vehicle.id in :vehicleIds")
+    int deleteAllByVehicleIdIn(@Param("vehicleIds") Collection<UUID> vehicleIds);
+
+    @Query(SELECT_IMAGE_RESPONSE)
+    List<ImageResponse> findAllResponses();
+
+    @Query(SELECT_IMAGE_RESPONSE + "where i.id = :id")
+    Optional<ImageResponse> findResponseById(@Param("id") UUID id);
+
+    @Query(SELECT_IMAGE_RESPONSE + "where i.vehicle.id = :vehicleId")
+    List<ImageResponse> findResponsesByVehicleId(@Param("vehicleId") UUID vehicleId);
+
+    @Query(SELECT_IMAGE_RESPONSE + "where i.vehicle.id in :vehicleIds")
+    List<ImageResponse> findResponsesByVehicleIdIn(@Param("vehicleIds") Collection<UUID> vehicleIds);
+
+    @Query("""
+            select new xyz.bnour.vehiclecatalog.response.ResourceVersion(i.id, coalesce(i.updatedAt, i.createdAt))
+            from Image i
+            where i.id = :id
+            """)
+    Optional<ResourceVersion> findVersionById(@Param("id") UUID id);
+
+    @Query(SELECT_IMAGE_RESPONSE + "where i.s3Key = :s3Key")
+    Optional<ImageResponse> findResponseByS3Key(@Param("s3Key") String s3Key);
+
+    @Modifying
+    @Query("update Image i set i.variants = :variants, i.updatedAt = :updatedAt where i.s3Key = :s3Key")
+    int updateVariants(@Param("s3Key") String s3Key, @Param("variants") String variants,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("""
+            select i.s3Key from Image i
+            where i.variants is null and i.createdAt < :createdBefore
+            group by i.s3Key
+            order by min(i.createdAt)
+            """)
+    List<String> findS3KeysWithoutVariants(@Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+
+    @Query("select distinct i.vehicle.id from Image i where i.s3Key = :s3Key")
+    List<UUID> findVehicleIdsByS3Key(@Param("s3Key") String s3Key);
 }
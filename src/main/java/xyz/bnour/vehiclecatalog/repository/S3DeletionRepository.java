@@ -0,0 +1,40 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.S3Deletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface S3DeletionRepository extends JpaRepository<S3Deletion, UUID> {
+
+    /**
+     * Skips rows another instance has already locked, so several sweepers can drain the outbox side by side.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from S3Deletion d where d.nextAttemptAt <= :now order by d.nextAttemptAt")
+    List<S3Deletion> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    @Query("select distinct d.s3Key from S3Deletion d where d.s3Key in :s3Keys")
+    List<String> findPendingS3Keys(@Param("s3Keys") Collection<String> s3Keys);
+
+    /**
+     * Waits for rows a sweeper holds, so a key can't be withdrawn while its object is being deleted.
+     */
+    @Modifying
+    @Query("delete from S3Deletion d where d.s3Key in :s3Keys")
+    int deleteAllByS3KeyIn(@Param("s3Keys") Collection<String> s3Keys);
+}
@@ -1,11 +1,65 @@
 package xyz.bnour.vehiclecatalog.repository;
 
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, UUID> {
+public interface VehicleRepository extends JpaRepository<Vehicle, UUID>, VehicleRepositoryCustom {
+    String SELECT_VEHICLE_DETAILS = """
+            select new xyz.bnour.vehiclecatalog.response.VehicleDetails(
+                v.id, v.name, v.model, v.horsepower, v.trunkCapacity, v.modelYear,
+                v.transmission, v.drivetrain, v.price, v.createdAt, v.updatedAt)
+            from Vehicle v
+            """;
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from Vehicle v where v.id = :id")
+    Optional<Vehicle> findByIdForUpdate(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v.id from Vehicle v where v.id in :ids order by v.id")
+    List<UUID> findIdsByIdInForUpdate(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("delete from Vehicle v where v.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(SELECT_VEHICLE_DETAILS + "where v.id = :id")
+    Optional<VehicleDetails> findDetailsById(@Param("id") UUID id);
+
+    @Query("""
+            select new xyz.bnour.vehiclecatalog.response.ResourceVersion(
+                v.id, coalesce(v.updatedAt, v.createdAt), count(i), max(coalesce(i.updatedAt, i.createdAt)))
+            from Vehicle v left join v.images i
+            where v.id = :id
+            group by v.id, v.updatedAt, v.createdAt
+            """)
+    Optional<ResourceVersion> findVersionById(@Param("id") UUID id);
+
+    @Query(SELECT_VEHICLE_DETAILS + "where v.id in :ids")
+    List<VehicleDetails> findDetailsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_VEHICLE_DETAILS + "order by v.createdAt, v.id")
+    Stream<VehicleDetails> streamAll();
 }
@@ -0,0 +1,45 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.VehicleSort;
+import xyz.bnour.vehiclecatalog.request.VehiclePatch;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface VehicleRepositoryCustom {
+
+    /**
+     * Projects the vehicles matching the specification straight into {@link VehicleDetails},
+     * ordered by the sort key with the id as tie-breaker.
+     */
+    List<VehicleDetails> findPage(Specification<Vehicle> specification, VehicleSort sort, Limit limit);
+
+    /**
+     * Ids of the vehicles whose name and model match every search term as a word prefix, best match first.
+     * Uses the full-text index on Postgres and falls back to substring matching on other databases.
+     */
+    List<UUID> searchIds(List<String> terms, long offset, Limit limit);
+
+    /**
+     * Inserts new vehicles as one JDBC batch, bypassing the persistence context. Ids and timestamps are assigned
+     * here the way Hibernate would; runs in the caller's transaction.
+     */
+    void insertAll(List<Vehicle> vehicles);
+
+    /**
+     * Ids of the vehicles matching the specification, in id order and locked for update so concurrent image
+     * uploads wait for the bulk operation.
+     */
+    List<UUID> findIdsForUpdate(Specification<Vehicle> specification, Limit limit);
+
+    /**
+     * Applies the non-null fields of the patch to the given vehicles in one update statement and returns the
+     * number of rows changed.
+     */
+    int updateAll(Collection<UUID> ids, VehiclePatch patch);
+}
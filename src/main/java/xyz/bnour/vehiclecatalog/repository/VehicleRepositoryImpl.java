@@ -0,0 +1,190 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.VehicleSort;
+import xyz.bnour.vehiclecatalog.request.VehiclePatch;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@SuppressWarnings("unchecked")
+class VehicleRepositoryImpl implements VehicleRepositoryCustom {
+    private static final String FULL_TEXT_SEARCH = """
+            select v.id
+            from vehicle v, to_tsquery('simple', :query) q
+            where v.search_vector @@ q
+            order by ts_rank(v.search_vector, q) desc, v.id
+            """;
+    private static final String INSERT_VEHICLE = """
+            insert into vehicle (id, name, model, horsepower, trunk_capacity, model_year, transmission, drivetrain,
+                                 price, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<VehicleDetails> findPage(Specification<Vehicle> specification, VehicleSort sort, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<VehicleDetails> query = cb.createQuery(VehicleDetails.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+
+        query.select(cb.construct(VehicleDetails.class,
+                vehicle.get("id"), vehicle.get("name"), vehicle.get("model"), vehicle.get("horsepower"),
+                vehicle.get("trunkCapacity"), vehicle.get("modelYear"), vehicle.get("transmission"),
+                vehicle.get("drivetrain"), vehicle.get("price"), vehicle.get("createdAt"), vehicle.get("updatedAt")));
+
+        Predicate predicate = specification.toPredicate(vehicle, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(
+                order(cb, vehicle.get(sort.getField().getProperty()), sort),
+                order(cb, vehicle.get("id"), sort));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    @Override
+    public List<UUID> searchIds(List<String> terms, long offset, Limit limit) {
+        if (supportsFullTextSearch()) {
+            String query = terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+            return entityManager.createNativeQuery(FULL_TEXT_SEARCH, UUID.class)
+                    .setParameter("query", query)
+                    .setFirstResult(Math.toIntExact(offset))
+                    .setMaxResults(limit.max())
+                    .getResultList();
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+        Expression<String> text = cb.lower(cb.concat(cb.concat(vehicle.get("name"), " "), vehicle.get("model")));
+
+        query.select(vehicle.get("id"))
+                .where(terms.stream()
+                        .map(term -> cb.like(text, "%" + term + "%"))
+                        .toArray(Predicate[]::new))
+                .orderBy(cb.asc(vehicle.get("name")), cb.asc(vehicle.get("id")));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    @Override
+    public void insertAll(List<Vehicle> vehicles) {
+        LocalDateTime now = LocalDateTime.now();
+        vehicles.forEach(vehicle -> {
+            vehicle.setId(UUID.randomUUID());
+            vehicle.setCreatedAt(now);
+            vehicle.setUpdatedAt(now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_VEHICLE, vehicles, vehicles.size(), (statement, vehicle) -> {
+            statement.setObject(1, vehicle.getId());
+            statement.setString(2, vehicle.getName());
+            statement.setString(3, vehicle.getModel());
+            statement.setObject(4, vehicle.getHorsepower(), Types.INTEGER);
+            statement.setObject(5, vehicle.getTrunkCapacity(), Types.INTEGER);
+            statement.setInt(6, vehicle.getModelYear());
+            statement.setString(7, vehicle.getTransmission());
+            statement.setString(8, vehicle.getDrivetrain());
+            statement.setBigDecimal(9, vehicle.getPrice());
+            statement.setObject(10, vehicle.getCreatedAt());
+            statement.setObject(11, vehicle.getUpdatedAt());
+        });
+    }
+
+    @Override
+    public List<UUID> findIdsForUpdate(Specification<Vehicle> specification, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+
+        query.select(vehicle.get("id")).orderBy(cb.asc(vehicle.get("id")));
+        Predicate predicate = specification.toPredicate(vehicle, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    @Override
+    public int updateAll(Collection<UUID> ids, VehiclePatch patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Vehicle> update = cb.createCriteriaUpdate(Vehicle.class);
+        Root<Vehicle> vehicle = update.from(Vehicle.class);
+
+        Path<BigDecimal> price = vehicle.get("price");
+        if (patch.getPrice() != null) {
+            update.set(price, patch.getPrice());
+        }
+        if (patch.getPriceChangePercent() != null) {
+            // Hibernate binds the multiplier with the price column's scale, so it stays in percent rather than a
+            // fraction that would be rounded to two decimals
+            BigDecimal multiplier = BigDecimal.valueOf(100).add(patch.getPriceChangePercent());
+            Expression<BigDecimal> changedPrice = cb.function("round", BigDecimal.class,
+                    cb.quot(cb.prod(price, multiplier), 100), cb.literal(2));
+            // A steep discount on a cheap vehicle would round to zero, which a price must never be
+            update.set(price, cb.function("greatest", BigDecimal.class, changedPrice, cb.literal(MIN_PRICE)));
+        }
+        setIfPresent(update, vehicle.get("horsepower"), patch.getHorsepower());
+        setIfPresent(update, vehicle.get("trunkCapacity"), patch.getTrunkCapacity());
+        setIfPresent(update, vehicle.get("modelYear"), patch.getModelYear());
+        setIfPresent(update, vehicle.get("transmission"), patch.getTransmission());
+        setIfPresent(update, vehicle.get("drivetrain"), patch.getDrivetrain());
+        update.set(vehicle.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        update.where(vehicle.get("id").in(ids));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private <T> void setIfPresent(CriteriaUpdate<Vehicle> update, Path<T> attribute, T value) {
+        if (value != null) {
+            update.set(attribute, value);
+        }
+    }
+
+    private boolean supportsFullTextSearch() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> expression, VehicleSort sort) {
+        return sort.getDirection().isAscending() ? cb.asc(expression) : cb.desc(expression);
+    }
+}
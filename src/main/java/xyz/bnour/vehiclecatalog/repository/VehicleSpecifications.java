@@ -0,0 +1,79 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.VehicleCursor;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public final class VehicleSpecifications {
+
+    private VehicleSpecifications() {
+    }
+
+    public static Specification<Vehicle> matching(VehicleFilter filter) {
+        return Specification.allOf(criteria(filter));
+    }
+
+    /**
+     * Whether the filter leaves every field open and so matches all vehicles.
+     */
+    public static boolean isUnrestricted(VehicleFilter filter) {
+        return criteria(filter).isEmpty();
+    }
+
+    /**
+     * Vehicles strictly past the cursor in its {@code (sort key, id)} ordering. Written as
+     * {@code key <= value and (key < value or id < cursorId)} (mirrored when ascending) rather than as a plain
+     * disjunction, so the database can still bound an index range scan on the sort key.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Vehicle> after(VehicleCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Comparable> key = root.get(cursor.getSort().getField().getProperty());
+            Path<UUID> id = root.get("id");
+            Comparable value = cursor.getValue();
+
+            if (cursor.getSort().getDirection().isAscending()) {
+                return cb.and(
+                        cb.greaterThanOrEqualTo(key, value),
+                        cb.or(cb.greaterThan(key, value), cb.greaterThan(id, cursor.getId())));
+            }
+            return cb.and(
+                    cb.lessThanOrEqualTo(key, value),
+                    cb.or(cb.lessThan(key, value), cb.lessThan(id, cursor.getId())));
+        };
+    }
+
+    private static List<Specification<Vehicle>> criteria(VehicleFilter filter) {
+        return Stream.of(
+                        atLeast("price", filter.getMinPrice()),
+                        atMost("price", filter.getMaxPrice()),
+                        atLeast("modelYear", filter.getMinModelYear()),
+                        atMost("modelYear", filter.getMaxModelYear()),
+                        atLeast("horsepower", filter.getMinHorsepower()),
+                        atMost("horsepower", filter.getMaxHorsepower()),
+                        equalTo("transmission", filter.getTransmission()),
+                        equalTo("drivetrain", filter.getDrivetrain()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Vehicle> atLeast(String attribute, T value) {
+        return value == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(attribute), value);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Vehicle> atMost(String attribute, T value) {
+        return value == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get(attribute), value);
+    }
+
+    private static Specification<Vehicle> equalTo(String attribute, String value) {
+        return value == null || value.isBlank() ? null : (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+}
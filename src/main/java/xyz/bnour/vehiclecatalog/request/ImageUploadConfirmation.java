@@ -0,0 +1,16 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadConfirmation {
+    @NotBlank
+    private String s3Key;
+}
@@ -0,0 +1,31 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * What the client is about to upload. The content type and length are baked into the presigned URL,
+ * so S3 rejects an upload that doesn't match them.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadUrlRequest {
+    @NotBlank
+    private String filename;
+
+    @NotBlank
+    @Pattern(regexp = "image/.+", message = "must be an image content type")
+    private String contentType;
+
+    @NotNull
+    @Positive
+    private Long contentLength;
+}
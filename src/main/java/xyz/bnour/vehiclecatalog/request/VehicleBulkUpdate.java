@@ -0,0 +1,22 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleBulkUpdate {
+    @NotNull
+    @Valid
+    private VehicleSelection selection;
+
+    @NotNull
+    @Valid
+    private VehiclePatch patch;
+}
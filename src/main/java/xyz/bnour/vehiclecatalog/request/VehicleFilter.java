@@ -0,0 +1,27 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional range and equality filters for the vehicle listing, bound from query parameters.
+ * Bounds are inclusive; a null field doesn't restrict anything.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleFilter {
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minModelYear;
+    private Integer maxModelYear;
+    private Integer minHorsepower;
+    private Integer maxHorsepower;
+    private String transmission;
+    private String drivetrain;
+}
@@ -0,0 +1,38 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Fields to set on every selected vehicle; a null field is left unchanged. The price is either set outright or
+ * changed by a percentage, e.g. {@code -10} for a 10% discount, rounded to cents and never below one cent.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehiclePatch {
+    @Positive
+    private BigDecimal price;
+
+    @DecimalMin(value = "-100", inclusive = false)
+    @Digits(integer = 6, fraction = 2)
+    private BigDecimal priceChangePercent;
+
+    @Positive
+    private Integer horsepower;
+
+    @Positive
+    private Integer trunkCapacity;
+
+    private Integer modelYear;
+    private String transmission;
+    private String drivetrain;
+}
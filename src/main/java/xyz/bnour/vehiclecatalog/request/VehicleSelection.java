@@ -0,0 +1,22 @@
+package xyz.bnour.vehiclecatalog.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The vehicles a bulk operation applies to, either by id or by the listing filter; exactly one of the two is set.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleSelection {
+    private List<@NotNull UUID> ids;
+    private VehicleFilter filter;
+}
@@ -3,30 +3,36 @@ package xyz.bnour.vehiclecatalog.response;
 import xyz.bnour.vehiclecatalog.entity.Image;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
+import lombok.With;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Urls aren't stored; they are filled in at read time through {@link #withUrl(String)} and {@link #withVariants(List)}.
+ * Variants are ordered by width, so clients can pick the first one that is wide enough.
+ */
 @Getter
-@Setter
-@NoArgsConstructor
 @AllArgsConstructor
 public class ImageResponse {
-    private UUID id;
-    private String s3Key;
-    private UUID vehicleId;
-    private String url;
-    private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
+    private final UUID id;
+    private final String s3Key;
+    private final UUID vehicleId;
+    @With
+    private final String url;
+    @With
+    private final List<ImageVariantResponse> variants;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ImageResponse(UUID id, String s3Key, UUID vehicleId, String variants,
+                         LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, s3Key, vehicleId, null, ImageVariantResponse.parse(s3Key, variants), createdAt, updatedAt);
+    }
 
     public ImageResponse(Image image) {
-        this.id = image.getId();
-        this.s3Key = image.getS3Key();
-        this.vehicleId = image.getVehicle().getId();
-        this.url = image.getUrl();
-        this.createdAt = image.getCreatedAt();
-        this.updatedAt = image.getUpdatedAt();
+        this(image.getId(), image.getS3Key(), image.getVehicle().getId(), image.getVariants(),
+                image.getCreatedAt(), image.getUpdatedAt());
     }
 }
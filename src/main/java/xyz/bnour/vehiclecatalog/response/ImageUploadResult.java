@@ -0,0 +1,26 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImageUploadResult {
+    private final String filename;
+    private final Status status;
+    private final ImageResponse image;
+    private final String error;
+
+    public static ImageUploadResult created(String filename, ImageResponse image) {
+        return new ImageUploadResult(filename, Status.CREATED, image, null);
+    }
+
+    public static ImageUploadResult failed(String filename, String error) {
+        return new ImageUploadResult(filename, Status.FAILED, null, error);
+    }
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+}
@@ -0,0 +1,20 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A presigned PUT: the client sends the file to {@code url} with exactly these headers, then confirms the {@code s3Key}.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageUploadUrl {
+    private final String s3Key;
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers;
+    private final Instant expiresAt;
+}
@@ -0,0 +1,67 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A resized copy of an image. Variants are stored on the image row as {@code 320x213,640x427}; their keys
+ * are derived from the original key, so nothing else needs to be persisted.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageVariantResponse {
+    public static final String CONTENT_TYPE = "image/jpeg";
+    private static final Pattern VARIANT_KEY = Pattern.compile("variants/(.+)-\\d+w\\.jpg");
+
+    private final int width;
+    private final int height;
+    private final String contentType;
+    private final String s3Key;
+    @With
+    private final String url;
+
+    public static String keyFor(String s3Key, int width) {
+        return "variants/" + s3Key + "-" + width + "w.jpg";
+    }
+
+    /**
+     * The key of the original a variant was made from, or the key itself if it isn't a variant.
+     */
+    public static String originalKeyOf(String key) {
+        Matcher variantKey = VARIANT_KEY.matcher(key);
+        return variantKey.matches() ? variantKey.group(1) : key;
+    }
+
+    public static String format(List<ImageVariantResponse> variants) {
+        return variants.stream()
+                .map(variant -> variant.getWidth() + "x" + variant.getHeight())
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Returns null while the variants haven't been generated yet, and an empty list if there are none.
+     */
+    public static List<ImageVariantResponse> parse(String s3Key, String variants) {
+        if (variants == null) {
+            return null;
+        }
+        if (variants.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(variants.split(","))
+                .map(variant -> {
+                    String[] size = variant.split("x");
+                    int width = Integer.parseInt(size[0]);
+                    return new ImageVariantResponse(width, Integer.parseInt(size[1]), CONTENT_TYPE,
+                            keyFor(s3Key, width), null);
+                })
+                .toList();
+    }
+}
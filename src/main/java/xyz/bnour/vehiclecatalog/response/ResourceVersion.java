@@ -0,0 +1,57 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Validators for conditional GETs, read with a timestamp-only query instead of the full resource.
+ * The ETag is strong and changes with every write; Last-Modified is the latest {@code updatedAt} involved.
+ */
+@Getter
+public class ResourceVersion {
+    private final String etag;
+    private final long lastModified;
+
+    public ResourceVersion(UUID id, LocalDateTime updatedAt) {
+        this.etag = etagOf(id + "|" + updatedAt);
+        this.lastModified = epochMillis(updatedAt);
+    }
+
+    /**
+     * Version of a vehicle rolled up over its images. The image count is part of the ETag so that deleting an
+     * image, which leaves no newer timestamp behind, still changes it.
+     */
+    public ResourceVersion(UUID id, LocalDateTime updatedAt, Long imageCount, LocalDateTime imagesUpdatedAt) {
+        this.etag = etagOf(id + "|" + updatedAt + "|" + imageCount + "|" + imagesUpdatedAt);
+        this.lastModified = imagesUpdatedAt != null && imagesUpdatedAt.isAfter(updatedAt)
+                ? epochMillis(imagesUpdatedAt)
+                : epochMillis(updatedAt);
+    }
+
+    private ResourceVersion(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Same version for a representation that also changes over time, e.g. because it carries expiring URLs.
+     * The ETag includes the window and Last-Modified is at least its start, so both validators stop matching once
+     * a new window begins.
+     */
+    public ResourceVersion withUrlWindow(long windowStart) {
+        return new ResourceVersion(etagOf(etag + "|" + windowStart), Math.max(lastModified, windowStart));
+    }
+
+    private static String etagOf(String value) {
+        return "\"" + DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,14 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Rows a bulk operation changed: the vehicles, and for deletes the images that went with them.
+ */
+@Getter
+@AllArgsConstructor
+public class VehicleBulkResult {
+    private final long vehicles;
+    private final long images;
+}
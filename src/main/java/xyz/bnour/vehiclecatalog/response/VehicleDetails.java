@@ -0,0 +1,27 @@
+package xyz.bnour.vehiclecatalog.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only view of a vehicle's columns, selected straight into this DTO by the repository queries.
+ */
+@Getter
+@AllArgsConstructor
+public class VehicleDetails {
+    private final UUID id;
+    private final String name;
+    private final String model;
+    private final Integer horsepower;
+    private final Integer trunkCapacity;
+    private final Integer modelYear;
+    private final String transmission;
+    private final String drivetrain;
+    private final BigDecimal price;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+}
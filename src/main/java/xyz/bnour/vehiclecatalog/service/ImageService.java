@@ -1,135 +1,470 @@
 package xyz.bnour.vehiclecatalog.service;
 
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
 import xyz.bnour.vehiclecatalog.entity.Image;
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
 import xyz.bnour.vehiclecatalog.repository.ImageRepository;
 import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.request.ImageUploadUrlRequest;
 import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ImageUploadResult;
+import xyz.bnour.vehiclecatalog.response.ImageUploadUrl;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
+@Timed(value = "image.service", histogram = true)
 public class ImageService {
     private final VehicleRepository vehicleRepository;
     private final ImageRepository imageRepository;
     private final S3Service s3Service;
+    private final ImageUrlService imageUrlService;
+    private final ImageVariantService imageVariantService;
+    private final S3CleanupService s3CleanupService;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("s3UploadExecutor")
+    private final Executor s3UploadExecutor;
     
     @Value("${xyz.bnour.vehicle-catalog.max-num-of-images-per-vehicle}")
     private Integer maxNumberOfImagesPerVehicle;
 
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxUploadSize;
+
     public List<ImageResponse> getAll() {
-        log.info("Fetching all images");
-        List<ImageResponse> images = imageRepository.findAll()
-                .stream()
-                .map(ImageResponse::new)
-                .toList();
-        log.info("Successfully retrieved {} images", images.size());
+        log.debug("Fetching all images");
+        List<ImageResponse> images = imageUrlService.withUrls(imageRepository.findAllResponses());
+        log.debug("Successfully retrieved {} images", images.size());
         return images;
     }
 
     public ImageResponse getById(String id) {
-        log.info("Fetching image by ID: {}", id);
-        Image image = imageRepository.findById(UUID.fromString(id))
+        log.debug("Fetching image by ID: {}", id);
+        ImageResponse image = imageRepository.findResponseById(UUID.fromString(id))
+                .map(imageUrlService::withUrl)
                 .orElseThrow(() -> {
                     log.error("Image not found with ID: {}", id);
                     return new EntityNotFoundException("Image not found with ID: " + id);
                 });
-        log.info("Successfully retrieved image: {} for vehicle: {}", image.getS3Key(), image.getVehicle().getId());
-        return new ImageResponse(image);
+        log.debug("Successfully retrieved image: {} for vehicle: {}", image.getS3Key(), image.getVehicleId());
+        return image;
     }
 
-    @Transactional
+    public ResourceVersion getVersion(String id) {
+        log.debug("Fetching version of image ID: {}", id);
+        return imageRepository.findVersionById(UUID.fromString(id))
+                .map(imageUrlService::withUrlWindow)
+                .orElseThrow(() -> {
+                    log.error("Image not found with ID: {}", id);
+                    return new EntityNotFoundException("Image not found with ID: " + id);
+                });
+    }
+
+    /**
+     * Uploads the file to S3 before opening the write transaction, so a slow transfer never pins a pooled
+     * connection. Content that is already stored is only referenced, not uploaded again. A newly uploaded object
+     * is deleted again if the image row can't be committed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ImageResponse create(String vehicleId, MultipartFile image) throws IOException {
-        log.info("Creating new image for vehicle ID: {}, file: {}, size: {} bytes", 
+        log.debug("Creating new image for vehicle ID: {}, file: {}, size: {} bytes", 
                 vehicleId, image.getOriginalFilename(), image.getSize());
         
-        Vehicle vehicle = findVehicleById(vehicleId);
+        validateImageFile(image);
+        UUID vehicleUuid = validateVehicleExists(vehicleId);
 
-        validateImageLimit(vehicle.getId());
-        
-        String s3Key = generateS3Key(image);
-        log.debug("Generated S3 key: {} for image upload", s3Key);
-        
-        s3Service.uploadImage(image.getInputStream(), s3Key, image.getSize());
-        
-        Image vehicleImage = new Image();
-        vehicleImage.setS3Key(s3Key);
-        vehicleImage.setVehicle(vehicle);
-        vehicleImage.setUrl(s3Service.getImageUrl(s3Key));
+        validateImageLimit(vehicleUuid, 1);
+
+        StoredObject storedObject = storeContent(image);
 
-        Image savedImage = imageRepository.save(vehicleImage);
+        Image savedImage = saveUploadedImages(vehicleUuid, List.of(storedObject)).get(0);
         log.info("Successfully created image with ID: {} for vehicle: {}", savedImage.getId(), vehicleId);
-        return new ImageResponse(savedImage);
+        return imageUrlService.withUrl(new ImageResponse(savedImage));
     }
 
-    @Transactional
+    /**
+     * Uploads a gallery for one vehicle. The image limit is checked once for the whole batch, the files are
+     * uploaded concurrently and the rows are inserted in a single JDBC batch. Files that fail validation or
+     * upload are reported individually; the others are still created.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ImageUploadResult> createBatch(String vehicleId, List<MultipartFile> images) {
+        log.debug("Creating {} images for vehicle ID: {}", images.size(), vehicleId);
+
+        UUID vehicleUuid = validateVehicleExists(vehicleId);
+        validateImageLimit(vehicleUuid, images.size());
+
+        List<PendingUpload> uploads = images.stream()
+                .map(image -> CompletableFuture.supplyAsync(() -> uploadBatchImage(image), s3UploadExecutor))
+                .toList()
+                .stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        List<StoredObject> storedObjects = uploads.stream()
+                .map(PendingUpload::storedObject)
+                .filter(Objects::nonNull)
+                .toList();
+        // Saved in the order they were passed; several files of a batch can share one content key
+        Iterator<Image> savedImages = storedObjects.isEmpty()
+                ? Collections.emptyIterator()
+                : saveUploadedImages(vehicleUuid, storedObjects).iterator();
+
+        List<ImageUploadResult> results = uploads.stream()
+                .map(upload -> upload.storedObject() == null
+                        ? ImageUploadResult.failed(upload.filename(), upload.error())
+                        : ImageUploadResult.created(upload.filename(),
+                                imageUrlService.withUrl(new ImageResponse(savedImages.next()))))
+                .toList();
+        log.info("Successfully created {} of {} images for vehicle: {}", storedObjects.size(), images.size(), vehicleId);
+        return results;
+    }
+
+    /**
+     * First step of a direct upload: checks the vehicle and image limit up front and presigns a PUT for a key
+     * under the vehicle's prefix. The file itself never reaches the app.
+     */
+    public ImageUploadUrl createUploadUrl(String vehicleId, ImageUploadUrlRequest request) {
+        log.debug("Creating upload URL for vehicle ID: {}, file: {}, size: {} bytes",
+                vehicleId, request.getFilename(), request.getContentLength());
+
+        if (request.getContentLength() > maxUploadSize.toBytes()) {
+            log.warn("Image validation failed: {} bytes exceeds the limit of {}", request.getContentLength(), maxUploadSize);
+            throw new IllegalArgumentException("File must not be larger than " + maxUploadSize);
+        }
+        UUID vehicleUuid = validateVehicleExists(vehicleId);
+        validateImageLimit(vehicleUuid, 1);
+
+        String s3Key = vehicleUuid + "/" + generateS3Key(request.getFilename());
+        PresignedPutObjectRequest presignedRequest =
+                s3Service.presignUpload(s3Key, request.getContentType(), request.getContentLength());
+
+        Map<String, String> headers = presignedRequest.signedHeaders().entrySet().stream()
+                .filter(header -> !header.getKey().equalsIgnoreCase("host"))
+                .collect(Collectors.toMap(Map.Entry::getKey, header -> String.join(",", header.getValue())));
+        log.info("Created upload URL for key: {} of vehicle: {}", s3Key, vehicleId);
+        return new ImageUploadUrl(s3Key, presignedRequest.httpRequest().method().name(),
+                presignedRequest.url().toString(), headers, presignedRequest.expiration());
+    }
+
+    /**
+     * Second step of a direct upload: records the image once the object is in S3. Confirming the same key
+     * again returns the existing image, so clients can safely retry. A database failure leaves the object in
+     * place for that retry; if none comes, the reconciliation job removes it later.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImageResponse confirmUpload(String vehicleId, String s3Key) {
+        log.debug("Confirming upload of key: {} for vehicle ID: {}", s3Key, vehicleId);
+
+        UUID vehicleUuid = validateVehicleExists(vehicleId);
+        if (!s3Key.startsWith(vehicleUuid + "/")) {
+            log.warn("Key {} was not issued for vehicle {}", s3Key, vehicleId);
+            throw new IllegalArgumentException("Key " + s3Key + " does not belong to vehicle " + vehicleId);
+        }
+
+        HeadObjectResponse object = s3Service.findObject(s3Key)
+                .orElseThrow(() -> {
+                    log.error("Uploaded object not found with key: {}", s3Key);
+                    return new EntityNotFoundException("Uploaded object not found with key: " + s3Key);
+                });
+        if (object.contentType() == null || !object.contentType().startsWith("image/")
+                || object.contentLength() > maxUploadSize.toBytes()) {
+            log.warn("Uploaded object {} is not an acceptable image, type: {}, size: {} bytes",
+                    s3Key, object.contentType(), object.contentLength());
+            s3Service.deleteImage(s3Key);
+            throw new IllegalArgumentException("Uploaded object " + s3Key + " is not a valid image");
+        }
+
+        // The object is the client's, not ours: it is only removed when the image is rejected for good
+        List<StoredObject> storedObjects = List.of(new StoredObject(s3Key, null, false));
+        ConfirmedUpload confirmed;
+        try {
+            confirmed = transactionTemplate.execute(status -> {
+                Vehicle vehicle = lockVehicle(vehicleUuid);
+                // Checked under the vehicle lock, so concurrent confirms of one key record a single image
+                Optional<ImageResponse> existingImage = imageRepository.findResponseByS3Key(s3Key);
+                if (existingImage.isPresent()) {
+                    return new ConfirmedUpload(existingImage.get(), false);
+                }
+                return new ConfirmedUpload(new ImageResponse(insertImages(vehicle, storedObjects).get(0)), true);
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // Lock timeouts, lost connections and the like; the client retries with the object still in place
+            log.error("Failed to record direct upload of key: {} for vehicle {}, keeping the object", s3Key, vehicleId);
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Rejected direct upload of key: {} for vehicle {}, removing the object", s3Key, vehicleId);
+            deleteUploadedObject(s3Key, e);
+            throw e;
+        }
+        if (!confirmed.created()) {
+            log.debug("Upload of key: {} was already confirmed", s3Key);
+            return imageUrlService.withUrl(confirmed.image());
+        }
+
+        imageVariantService.generateAsync(s3Key);
+        log.info("Successfully created image with ID: {} for vehicle: {} from direct upload",
+                confirmed.image().getId(), vehicleId);
+        return imageUrlService.withUrl(confirmed.image());
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ImageResponse update(String id, MultipartFile newImage) throws IOException {
-        log.info("Updating image ID: {} with new file: {}, size: {} bytes", 
+        log.debug("Updating image ID: {} with new file: {}, size: {} bytes", 
                 id, newImage.getOriginalFilename(), newImage.getSize());
-        
+
+        validateImageFile(newImage);
         Image existingImage = imageRepository.findById(UUID.fromString(id))
                 .orElseThrow(() -> {
                     log.error("Image not found for update with ID: {}", id);
                     return new EntityNotFoundException("Image not found with ID: " + id);
                 });
 
-        log.debug("Updating S3 object with key: {}", existingImage.getS3Key());
-        s3Service.uploadImage(newImage.getInputStream(), existingImage.getS3Key(), newImage.getSize());
-        
-        Image updatedImage = imageRepository.save(existingImage);
+        // Objects are shared by content, so the image is pointed at the new content instead of overwriting its object
+        StoredObject storedObject = storeContent(newImage);
+        String previousKey = existingImage.getS3Key();
+        log.debug("Pointing image {} from key: {} to key: {}", id, previousKey, storedObject.s3Key());
+        existingImage.setS3Key(storedObject.s3Key());
+        existingImage.setVariants(storedObject.variants());
+        Image updatedImage = transactionTemplate.execute(status -> {
+            Image saved = imageRepository.save(existingImage);
+            s3CleanupService.cancelDeletion(List.of(storedObject.s3Key()));
+            if (!previousKey.equals(storedObject.s3Key())) {
+                s3CleanupService.scheduleDeletion(List.of(previousKey));
+            }
+            evictCachedVehicle(saved.getVehicle().getId());
+            return saved;
+        });
+        if (storedObject.uploaded()) {
+            imageVariantService.generateAsync(storedObject.s3Key());
+        }
         log.info("Successfully updated image with ID: {}", id);
-        return new ImageResponse(updatedImage);
+        return imageUrlService.withUrl(new ImageResponse(updatedImage));
     }
 
     @Transactional
     public void deleteById(String id) {
-        log.info("Deleting image with ID: {}", id);
+        log.debug("Deleting image with ID: {}", id);
         UUID imageId = UUID.fromString(id);
-        if (!imageRepository.existsById(imageId)) {
-            log.error("Image not found for deletion with ID: {}", id);
-            throw new EntityNotFoundException("Image not found with ID: " + id);
-        }
-        imageRepository.deleteById(imageId);
+        Image image = imageRepository.findById(imageId)
+                .orElseThrow(() -> {
+                    log.error("Image not found for deletion with ID: {}", id);
+                    return new EntityNotFoundException("Image not found with ID: " + id);
+                });
+        imageRepository.delete(image);
+        s3CleanupService.scheduleDeletion(List.of(image.getS3Key()));
+        evictCachedVehicle(image.getVehicle().getId());
         log.info("Successfully deleted image with ID: {}", id);
     }
 
-    private Vehicle findVehicleById(String vehicleId) {
-        log.debug("Looking up vehicle by ID: {}", vehicleId);
-        return vehicleRepository.findById(UUID.fromString(vehicleId))
+    private void evictCachedVehicle(UUID vehicleId) {
+        Cache vehicles = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        if (vehicles != null) {
+            log.debug("Evicting cached vehicle: {}", vehicleId);
+            vehicles.evict(vehicleId);
+        }
+    }
+
+    private PendingUpload uploadBatchImage(MultipartFile image) {
+        try {
+            validateImageFile(image);
+            return new PendingUpload(image.getOriginalFilename(), storeContent(image), null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to upload image {} of batch: {}", image.getOriginalFilename(), e.getMessage());
+            return new PendingUpload(image.getOriginalFilename(), null, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the upload under the SHA-256 of its content. When an image already references that content, its
+     * object and variants are reused and nothing is sent to S3, so a duplicate costs one indexed lookup.
+     */
+    private StoredObject storeContent(MultipartFile image) throws IOException {
+        String s3Key = hashContent(image) + getFileExtension(image.getOriginalFilename()).toLowerCase(Locale.ROOT);
+        Optional<Image> imageWithSameContent = imageRepository.findFirstByS3Key(s3Key);
+        if (imageWithSameContent.isPresent()) {
+            log.info("Content of {} is already stored with key: {}, skipping upload", image.getOriginalFilename(), s3Key);
+            return new StoredObject(s3Key, imageWithSameContent.get().getVariants(), false);
+        }
+
+        log.debug("Uploading new content of {} with key: {}", image.getOriginalFilename(), s3Key);
+        // The last image with this content may be gone with its object still scheduled for deletion. Withdrawing
+        // that first waits for a sweep deleting it right now, so it can't remove the object after the upload.
+        transactionTemplate.executeWithoutResult(status -> s3CleanupService.cancelDeletion(List.of(s3Key)));
+        s3Service.uploadImage(image.getInputStream(), s3Key, image.getSize(), image.getContentType());
+        return new StoredObject(s3Key, null, true);
+    }
+
+    /**
+     * Reads the copy the servlet container has already spooled, so the client's upload is never read twice.
+     */
+    private String hashContent(MultipartFile image) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream content = new DigestInputStream(image.getInputStream(), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private List<Image> saveUploadedImages(UUID vehicleId, List<StoredObject> storedObjects) {
+        List<Image> savedImages = recordUploadedImages(vehicleId, storedObjects);
+        storedObjects.stream()
+                .filter(StoredObject::uploaded)
+                .map(StoredObject::s3Key)
+                .distinct()
+                .forEach(imageVariantService::generateAsync);
+        return savedImages;
+    }
+
+    private List<Image> recordUploadedImages(UUID vehicleId, List<StoredObject> storedObjects) {
+        try {
+            return transactionTemplate.execute(status -> insertImages(lockVehicle(vehicleId), storedObjects));
+        } catch (RuntimeException e) {
+            log.error("Failed to record {} images for vehicle {}, removing uploaded objects", storedObjects.size(), vehicleId);
+            storedObjects.stream()
+                    .filter(StoredObject::uploaded)
+                    .map(StoredObject::s3Key)
+                    .distinct()
+                    .forEach(s3Key -> deleteUploadedObject(s3Key, e));
+            throw e;
+        }
+    }
+
+    /**
+     * Concurrent uploads for the same vehicle serialize on the vehicle row, so checks made after this are exact.
+     */
+    private Vehicle lockVehicle(UUID vehicleId) {
+        return vehicleRepository.findByIdForUpdate(vehicleId)
                 .orElseThrow(() -> {
-                    log.error("Vehicle not found with ID: {}", vehicleId);
+                    log.error("Vehicle {} was deleted while its images were uploading", vehicleId);
                     return new EntityNotFoundException("Vehicle not found with ID: " + vehicleId);
                 });
     }
+
+    private List<Image> insertImages(Vehicle vehicle, List<StoredObject> storedObjects) {
+        validateImageLimit(vehicle.getId(), storedObjects.size());
+
+        List<Image> vehicleImages = storedObjects.stream()
+                .map(storedObject -> {
+                    Image vehicleImage = new Image();
+                    vehicleImage.setS3Key(storedObject.s3Key());
+                    vehicleImage.setVariants(storedObject.variants());
+                    vehicleImage.setVehicle(vehicle);
+                    return vehicleImage;
+                })
+                .toList();
+
+        List<Image> savedImages = imageRepository.saveAll(vehicleImages);
+        s3CleanupService.cancelDeletion(storedObjects.stream().map(StoredObject::s3Key).distinct().toList());
+        evictCachedVehicle(vehicle.getId());
+        return savedImages;
+    }
+
+    private void deleteUploadedObject(String s3Key, RuntimeException cause) {
+        try {
+            // A concurrent upload of the same content may have been recorded in the meantime
+            if (imageRepository.countByS3Key(s3Key) > 0) {
+                log.debug("Keeping S3 object with key: {}, it is referenced by another image", s3Key);
+                return;
+            }
+            s3Service.deleteImage(s3Key);
+        } catch (RuntimeException e) {
+            log.error("Failed to remove orphaned S3 object with key: {}", s3Key);
+            cause.addSuppressed(e);
+        }
+    }
+
+    private UUID validateVehicleExists(String vehicleId) {
+        log.debug("Looking up vehicle by ID: {}", vehicleId);
+        UUID vehicleUuid = UUID.fromString(vehicleId);
+        if (!vehicleRepository.existsById(vehicleUuid)) {
+            log.error("Vehicle not found with ID: {}", vehicleId);
+            throw new EntityNotFoundException("Vehicle not found with ID: " + vehicleId);
+        }
+        return vehicleUuid;
+    }
+    
+    private void validateImageFile(MultipartFile file) {
+        log.debug("Validating image file: {}, type: {}, size: {} bytes", 
+                file.getOriginalFilename(), file.getContentType(), file.getSize());
+        
+        if (file.isEmpty()) {
+            log.warn("Image validation failed: File is empty");
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+        
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            log.warn("Image validation failed: Invalid content type: {}", contentType);
+            throw new IllegalArgumentException("File must be an image");
+        }
+        
+        log.debug("Image file validation passed");
+    }
     
-    private void validateImageLimit(UUID vehicleId) {
+    private void validateImageLimit(UUID vehicleId, int numOfNewImages) {
         log.debug("Validating image limit for vehicle ID: {}", vehicleId);
-        List<Image> existingImages = imageRepository.findAllByVehicleId(vehicleId);
-        log.debug("Vehicle {} currently has {} images (limit: {})", vehicleId, existingImages.size(), maxNumberOfImagesPerVehicle);
+        long existingImages = imageRepository.countByVehicleId(vehicleId);
+        log.debug("Vehicle {} currently has {} images (limit: {})", vehicleId, existingImages, maxNumberOfImagesPerVehicle);
         
-        if (existingImages.size() >= maxNumberOfImagesPerVehicle) {
-            log.error("Vehicle {} already has {} images, exceeding limit of {}", vehicleId, existingImages.size(), maxNumberOfImagesPerVehicle);
+        if (existingImages + numOfNewImages > maxNumberOfImagesPerVehicle) {
+            log.error("Vehicle {} already has {} images, adding {} would exceed limit of {}",
+                    vehicleId, existingImages, numOfNewImages, maxNumberOfImagesPerVehicle);
             throw new RuntimeException("Vehicle " + vehicleId + " already has " + 
-                    existingImages.size() + " images (limit: " + maxNumberOfImagesPerVehicle + ")");
+                    existingImages + " images (limit: " + maxNumberOfImagesPerVehicle + ")");
         }
     }
     
-    private String generateS3Key(MultipartFile image) {
-        String fileExtension = getFileExtension(image.getOriginalFilename());
+    private String generateS3Key(String filename) {
+        String fileExtension = getFileExtension(filename);
         String s3Key = UUID.randomUUID() + fileExtension;
-        log.debug("Generated secure S3 key: {} from original filename: {}", s3Key, image.getOriginalFilename());
+        log.debug("Generated secure S3 key: {} from original filename: {}", s3Key, filename);
         return s3Key;
     }
     
@@ -140,4 +475,13 @@ public class ImageService {
 
         return filename.substring(filename.lastIndexOf("."));
     }
+
+    private record StoredObject(String s3Key, String variants, boolean uploaded) {
+    }
+
+    private record PendingUpload(String filename, StoredObject storedObject, String error) {
+    }
+
+    private record ConfirmedUpload(ImageResponse image, boolean created) {
+    }
 }
@@ -0,0 +1,130 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Builds image URLs at read time, so nothing about the bucket, region or CDN is stored with the image.
+ * With a CDN domain configured the URL points at CloudFront, which reads the private bucket through its origin
+ * access control. Otherwise it is a presigned S3 GET, cached per key and re-signed in the background once a
+ * quarter of its lifetime has passed, so listings don't sign every URL on every request.
+ * <p>
+ * A presigned URL is served for at most half of its lifetime, plus however long a response holding it is cached.
+ * Conditional GETs can keep a response alive for another URL window, see {@link #withUrlWindow(ResourceVersion)},
+ * so the vehicle cache TTL must stay below three eighths of the download expiry, which is checked at startup.
+ */
+@Service
+@Slf4j
+public class ImageUrlService {
+    private final S3Presigner s3Presigner;
+    private final String bucketName;
+    private final String cdnDomain;
+    private final Duration downloadExpiry;
+    private final Duration vehicleCacheTtl;
+    private final Duration urlWindow;
+    private final LoadingCache<String, String> presignedUrls;
+
+    public ImageUrlService(S3Presigner s3Presigner,
+                           MeterRegistry meterRegistry,
+                           @Value("${aws.s3.bucket.name}") String bucketName,
+                           @Value("${aws.cloudfront.domain}") String cdnDomain,
+                           @Value("${aws.s3.presign.download-expiry}") Duration downloadExpiry,
+                           @Value("${xyz.bnour.vehicle-catalog.cache.vehicles.expire-after-write}") Duration vehicleCacheTtl,
+                           @Value("${xyz.bnour.vehicle-catalog.cache.image-urls.maximum-size}") Long maximumSize) {
+        this.s3Presigner = s3Presigner;
+        this.bucketName = bucketName;
+        this.cdnDomain = cdnDomain;
+        this.downloadExpiry = downloadExpiry;
+        this.vehicleCacheTtl = vehicleCacheTtl;
+        this.urlWindow = downloadExpiry.dividedBy(8);
+        this.presignedUrls = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(downloadExpiry.dividedBy(4))
+                .expireAfterWrite(downloadExpiry.dividedBy(2))
+                .recordStats()
+                .build(this::presignDownload);
+        // Same tag keys as the Spring managed caches, Prometheus rejects meters whose tag keys differ
+        CaffeineCacheMetrics.monitor(meterRegistry, presignedUrls, "image-urls",
+                Tags.of("cache.manager", "imageUrlService", "name", "image-urls"));
+    }
+
+    /**
+     * A cached vehicle response can hand out a presigned URL half its lifetime old, and one more URL window of
+     * conditional GETs follows, so a longer TTL serves URLs that have already expired. CDN URLs don't expire.
+     */
+    @PostConstruct
+    void validateVehicleCacheTtl() {
+        Duration maximumTtl = downloadExpiry.multipliedBy(3).dividedBy(8);
+        if (!usesCdn() && vehicleCacheTtl.compareTo(maximumTtl) >= 0) {
+            throw new IllegalStateException("xyz.bnour.vehicle-catalog.cache.vehicles.expire-after-write ("
+                    + vehicleCacheTtl + ") must be shorter than three eighths of aws.s3.presign.download-expiry ("
+                    + maximumTtl + ")");
+        }
+    }
+
+    public String getUrl(String s3Key) {
+        if (usesCdn()) {
+            return "https://" + cdnDomain + "/" + s3Key;
+        }
+        return presignedUrls.get(s3Key);
+    }
+
+    public ImageResponse withUrl(ImageResponse image) {
+        ImageResponse withUrl = image.withUrl(getUrl(image.getS3Key()));
+        if (image.getVariants() == null) {
+            return withUrl;
+        }
+        return withUrl.withVariants(image.getVariants().stream()
+                .map(variant -> variant.withUrl(getUrl(variant.getS3Key())))
+                .toList());
+    }
+
+    public List<ImageResponse> withUrls(List<ImageResponse> images) {
+        return images.stream().map(this::withUrl).toList();
+    }
+
+    /**
+     * The validators of a response with presigned URLs must not outlive the URLs, or a client keeps revalidating
+     * a body whose links have expired. Both move on to the current URL window, an eighth of the download expiry,
+     * so a body is confirmed by a 304 for at most one window after it was served. CloudFront URLs don't expire.
+     */
+    public ResourceVersion withUrlWindow(ResourceVersion version) {
+        if (usesCdn()) {
+            return version;
+        }
+        long windowMillis = urlWindow.toMillis();
+        return version.withUrlWindow(System.currentTimeMillis() / windowMillis * windowMillis);
+    }
+
+    private boolean usesCdn() {
+        return cdnDomain != null && !cdnDomain.isBlank();
+    }
+
+    private String presignDownload(String s3Key) {
+        log.debug("Presigning download of key: {}", s3Key);
+        return s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                        .signatureDuration(downloadExpiry)
+                        .getObjectRequest(GetObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(s3Key)
+                                .build())
+                        .build())
+                .url()
+                .toString();
+    }
+}
@@ -0,0 +1,226 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import xyz.bnour.vehiclecatalog.response.ImageVariantResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Generates resized JPEG copies of uploaded images in the background. Each original is downloaded and decoded once,
+ * then scaled down step by step from the widest variant to the narrowest. Variants belong to the content, so they
+ * are recorded on every image that references the same object.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantService {
+    private final ImageRepository imageRepository;
+    private final S3Service s3Service;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("imageVariantExecutor")
+    private final Executor imageVariantExecutor;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.enabled}")
+    private Boolean enabled;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.widths}")
+    private List<Integer> widths;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.jpeg-quality}")
+    private Float jpegQuality;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.max-pixels}")
+    private Long maxPixels;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.backfill-interval}")
+    private Duration backfillInterval;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.backfill-batch-size}")
+    private Integer backfillBatchSize;
+
+    /**
+     * Queues variant generation; call it once the image row is committed.
+     */
+    public void generateAsync(String s3Key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            imageVariantExecutor.execute(() -> generate(s3Key));
+        } catch (TaskRejectedException e) {
+            log.warn("Variant queue is full, key {} will be picked up by the backfill", s3Key);
+        }
+    }
+
+    /**
+     * Re-queues images whose variants were never recorded, e.g. because the queue was full or the app stopped.
+     */
+    @Scheduled(fixedDelayString = "${xyz.bnour.vehicle-catalog.image-variants.backfill-interval}",
+            initialDelayString = "${xyz.bnour.vehicle-catalog.image-variants.backfill-interval}")
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        List<String> s3Keys = imageRepository.findS3KeysWithoutVariants(
+                LocalDateTime.now().minus(backfillInterval), Limit.of(backfillBatchSize));
+        if (!s3Keys.isEmpty()) {
+            log.info("Queueing variant generation for {} objects without variants", s3Keys.size());
+        }
+        s3Keys.forEach(this::generateAsync);
+    }
+
+    void generate(String s3Key) {
+        log.debug("Generating variants for key: {}", s3Key);
+        String variants;
+        try {
+            BufferedImage original = decode(s3Key);
+            variants = original == null ? "" : ImageVariantResponse.format(createVariants(s3Key, original));
+        } catch (RuntimeException e) {
+            if (!(e.getCause() instanceof NoSuchKeyException)) {
+                log.warn("Failed to generate variants for key: {}, will retry later. Error: {}", s3Key, e.getMessage());
+                return;
+            }
+            log.warn("Original with key: {} no longer exists, skipping its variants", s3Key);
+            variants = "";
+        } catch (IOException e) {
+            log.warn("Failed to decode key: {}, skipping its variants. Error: {}", s3Key, e.getMessage());
+            variants = "";
+        }
+
+        String recordedVariants = variants;
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.updateVariants(s3Key, recordedVariants, LocalDateTime.now());
+            imageRepository.findVehicleIdsByS3Key(s3Key).forEach(this::evictCachedVehicle);
+        });
+        log.info("Recorded variants [{}] for key: {}", recordedVariants, s3Key);
+    }
+
+    /**
+     * Returns null when the object isn't an image ImageIO can read, or is too large to decode safely.
+     */
+    private BufferedImage decode(String s3Key) throws IOException {
+        try (InputStream content = s3Service.downloadImage(s3Key);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.warn("No decoder for image with key: {}", s3Key);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image with key: {} has {} pixels, more than the {} allowed", s3Key, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private List<ImageVariantResponse> createVariants(String s3Key, BufferedImage original) throws IOException {
+        List<Integer> targetWidths = widths.stream()
+                .filter(width -> width < original.getWidth())
+                .sorted(Comparator.reverseOrder())
+                .toList();
+
+        List<ImageVariantResponse> variants = new ArrayList<>(targetWidths.size());
+        BufferedImage source = original;
+        for (int width : targetWidths) {
+            source = resize(source, width);
+            byte[] content = encodeJpeg(source);
+            String variantKey = ImageVariantResponse.keyFor(s3Key, width);
+            s3Service.uploadImage(new ByteArrayInputStream(content), variantKey, (long) content.length,
+                    ImageVariantResponse.CONTENT_TYPE);
+            variants.add(0, new ImageVariantResponse(width, source.getHeight(), ImageVariantResponse.CONTENT_TYPE,
+                    variantKey, null));
+        }
+        return variants;
+    }
+
+    /**
+     * Halves the image until it is within a factor of two of the target, so bilinear scaling keeps its quality.
+     */
+    private static BufferedImage resize(BufferedImage source, int width) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(width, current.getWidth() / 2);
+            int stepHeight = Math.max(height, current.getHeight() / 2);
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, stepWidth, stepHeight);
+                graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (current.getWidth() != width);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(content)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return content.toByteArray();
+    }
+
+    private void evictCachedVehicle(UUID vehicleId) {
+        Cache vehicles = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        if (vehicles != null) {
+            vehicles.evict(vehicleId);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.S3Deletion;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import xyz.bnour.vehiclecatalog.repository.S3DeletionRepository;
+import xyz.bnour.vehiclecatalog.response.ImageVariantResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes S3 objects that no image references anymore. Deletes and updates only write an outbox row in their own
+ * transaction; a scheduled sweeper deletes the objects in batches later, so requests never wait on S3. Objects are
+ * shared by content, so the sweeper checks again that nothing references a key before deleting it, and writes that
+ * reference a key again withdraw its outbox rows.
+ */
+@Service
+@Slf4j
+public class S3CleanupService {
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final S3DeletionRepository s3DeletionRepository;
+    private final ImageRepository imageRepository;
+    private final S3Service s3Service;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong pendingDeletions = new AtomicLong();
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.enabled}")
+    private Boolean enabled;
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.grace-period}")
+    private Duration gracePeriod;
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.sweep-interval}")
+    private Duration sweepInterval;
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.batch-size}")
+    private Integer batchSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.max-retry-delay}")
+    private Duration maxRetryDelay;
+
+    @Value("${xyz.bnour.vehicle-catalog.s3-cleanup.reconciliation-min-age}")
+    private Duration reconciliationMinAge;
+
+    @Value("${xyz.bnour.vehicle-catalog.image-variants.widths}")
+    private List<Integer> variantWidths;
+
+    public S3CleanupService(S3DeletionRepository s3DeletionRepository, ImageRepository imageRepository,
+                            S3Service s3Service, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.s3DeletionRepository = s3DeletionRepository;
+        this.imageRepository = imageRepository;
+        this.s3Service = s3Service;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("s3.cleanup.pending", pendingDeletions, AtomicLong::get)
+                .description("Outbox rows left after the last sweep")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records keys whose images were deleted or moved to other content, in the caller's transaction. Nothing is
+     * deleted before the grace period, which covers an upload that matched the content just before its last image
+     * went away.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void scheduleDeletion(Collection<String> s3Keys) {
+        if (s3Keys.isEmpty()) {
+            return;
+        }
+        LocalDateTime notBefore = LocalDateTime.now().plus(gracePeriod);
+        s3DeletionRepository.saveAll(s3Keys.stream()
+                .distinct()
+                .map(s3Key -> new S3Deletion(s3Key, notBefore))
+                .toList());
+        log.debug("Scheduled deletion of {} S3 objects", s3Keys.size());
+    }
+
+    /**
+     * Withdraws scheduled deletions of keys that images reference again, variants included, in the caller's
+     * transaction. If a sweeper is deleting one of the keys right now, this waits until it is done.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cancelDeletion(Collection<String> s3Keys) {
+        if (s3Keys.isEmpty()) {
+            return;
+        }
+        int cancelled = s3DeletionRepository.deleteAllByS3KeyIn(s3Keys.stream()
+                .flatMap(this::objectKeys)
+                .distinct()
+                .toList());
+        if (cancelled > 0) {
+            log.info("Cancelled {} scheduled deletions of S3 objects that are referenced again", cancelled);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${xyz.bnour.vehicle-catalog.s3-cleanup.sweep-interval}",
+            initialDelayString = "${xyz.bnour.vehicle-catalog.s3-cleanup.sweep-interval}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        int claimed;
+        do {
+            claimed = sweepBatch();
+        } while (claimed == batchSize);
+        pendingDeletions.set(s3DeletionRepository.count());
+    }
+
+    /**
+     * Finds objects that are older than the minimum age and not referenced by any image, e.g. direct uploads that
+     * were never confirmed or objects left behind before the outbox existed, and schedules their deletion.
+     */
+    @Scheduled(cron = "${xyz.bnour.vehicle-catalog.s3-cleanup.reconciliation-cron}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Reconciling S3 objects with image rows");
+        Instant modifiedBefore = Instant.now().minus(reconciliationMinAge);
+        AtomicInteger orphans = new AtomicInteger();
+        s3Service.forEachObjectPage(objects -> {
+            List<String> s3Keys = objects.stream()
+                    .filter(object -> object.lastModified().isBefore(modifiedBefore))
+                    .map(S3Object::key)
+                    .toList();
+            if (s3Keys.isEmpty()) {
+                return;
+            }
+            Set<String> referencedKeys = findReferencedKeys(s3Keys);
+            Set<String> pendingKeys = new HashSet<>(s3DeletionRepository.findPendingS3Keys(s3Keys));
+            List<String> orphanKeys = s3Keys.stream()
+                    .filter(s3Key -> !referencedKeys.contains(ImageVariantResponse.originalKeyOf(s3Key)))
+                    .filter(s3Key -> !pendingKeys.contains(s3Key))
+                    .toList();
+            if (!orphanKeys.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> scheduleDeletion(orphanKeys));
+                orphans.addAndGet(orphanKeys.size());
+            }
+        });
+        meterRegistry.counter("s3.cleanup.orphans").increment(orphans.get());
+        log.info("Scheduled deletion of {} unreferenced S3 objects", orphans.get());
+    }
+
+    /**
+     * Deletes one batch in a single transaction. The claimed rows stay locked from the reference check until the
+     * objects are gone, and an upload of the same content withdraws them through {@link #cancelDeletion}, so it
+     * can't commit a new reference in between. If this instance dies the rows are simply unlocked again.
+     */
+    int sweepBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> {
+            List<S3Deletion> deletions = s3DeletionRepository.findDueForUpdate(now, Limit.of(batchSize));
+            if (deletions.isEmpty()) {
+                return 0;
+            }
+
+            Set<String> referencedKeys = findReferencedKeys(deletions.stream().map(S3Deletion::getS3Key).toList());
+            List<S3Deletion> unreferenced = deletions.stream()
+                    .filter(deletion ->
+                            !referencedKeys.contains(ImageVariantResponse.originalKeyOf(deletion.getS3Key())))
+                    .toList();
+            List<String> objectKeys = unreferenced.stream()
+                    .flatMap(deletion -> objectKeys(deletion.getS3Key()))
+                    .distinct()
+                    .toList();
+            Map<String, String> errors = objectKeys.isEmpty() ? Map.of() : s3Service.deleteImages(objectKeys);
+
+            List<S3Deletion> failed = unreferenced.stream()
+                    .filter(deletion -> objectKeys(deletion.getS3Key()).anyMatch(errors::containsKey))
+                    .toList();
+            failed.forEach(deletion -> scheduleRetry(deletion, errors, now));
+            Set<UUID> failedIds = failed.stream().map(S3Deletion::getId).collect(Collectors.toSet());
+            List<UUID> completed = deletions.stream()
+                    .map(S3Deletion::getId)
+                    .filter(id -> !failedIds.contains(id))
+                    .toList();
+            s3DeletionRepository.deleteAllByIdInBatch(completed);
+            s3DeletionRepository.saveAll(failed);
+
+            meterRegistry.counter("s3.cleanup.objects", "result", "deleted")
+                    .increment(unreferenced.size() - failed.size());
+            meterRegistry.counter("s3.cleanup.objects", "result", "failed").increment(failed.size());
+            meterRegistry.counter("s3.cleanup.objects", "result", "referenced")
+                    .increment(deletions.size() - unreferenced.size());
+            log.info("Swept {} scheduled deletions: {} deleted, {} still referenced, {} failed", deletions.size(),
+                    unreferenced.size() - failed.size(), deletions.size() - unreferenced.size(), failed.size());
+            return deletions.size();
+        });
+    }
+
+    private Set<String> findReferencedKeys(List<String> s3Keys) {
+        return new HashSet<>(imageRepository.findReferencedS3Keys(s3Keys.stream()
+                .map(ImageVariantResponse::originalKeyOf)
+                .distinct()
+                .toList()));
+    }
+
+    /**
+     * An original takes its variants with it. Variants are deleted for every configured width; keys that were
+     * never generated are simply not found.
+     */
+    private Stream<String> objectKeys(String s3Key) {
+        if (!ImageVariantResponse.originalKeyOf(s3Key).equals(s3Key)) {
+            return Stream.of(s3Key);
+        }
+        return Stream.concat(Stream.of(s3Key),
+                variantWidths.stream().map(width -> ImageVariantResponse.keyFor(s3Key, width)));
+    }
+
+    private void scheduleRetry(S3Deletion deletion, Map<String, String> errors, LocalDateTime now) {
+        String error = objectKeys(deletion.getS3Key())
+                .map(errors::get)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("");
+        int attempts = deletion.getAttempts() + 1;
+        // Doubles the delay with every attempt, shifted by at most 20 so it can't overflow
+        Duration backoff = sweepInterval.multipliedBy(1L << Math.min(attempts, 20));
+        Duration retryDelay = backoff.compareTo(maxRetryDelay) < 0 ? backoff : maxRetryDelay;
+        deletion.setAttempts(attempts);
+        deletion.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        deletion.setNextAttemptAt(now.plus(retryDelay));
+        log.warn("Failed to delete S3 object with key: {} after {} attempts, retrying in {}. Error: {}",
+                deletion.getS3Key(), attempts, retryDelay, error);
+    }
+}
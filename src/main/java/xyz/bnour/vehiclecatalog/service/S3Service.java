@@ -1,41 +1,260 @@
 package xyz.bnour.vehiclecatalog.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class S3Service {
     
+    private static final Duration PART_RETRY_BACKOFF = Duration.ofMillis(200);
+    private static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+    private static final DataSize[] SIZE_CLASS_LIMITS = {
+            DataSize.ofKilobytes(256), DataSize.ofMegabytes(1), DataSize.ofMegabytes(8), DataSize.ofMegabytes(32)};
+    private static final String[] SIZE_CLASS_NAMES = {"256kb", "1mb", "8mb", "32mb"};
+
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+
+    @Qualifier("s3TransferExecutor")
+    private final Executor s3TransferExecutor;
+
+    private final MeterRegistry meterRegistry;
     
     @Value("${aws.s3.bucket.name}")
     private String bucketName;
 
-    @Value("${aws.s3.region}")
-    private String bucketRegion;
+    @Value("${aws.s3.presign.upload-expiry}")
+    private Duration presignedUploadExpiry;
+
+    @Value("${aws.s3.multipart.threshold}")
+    private DataSize multipartThreshold;
+
+    @Value("${aws.s3.multipart.part-size}")
+    private DataSize multipartPartSize;
+
+    @Value("${aws.s3.multipart.max-concurrent-parts}")
+    private Integer maxConcurrentParts;
+
+    @Value("${aws.s3.multipart.max-attempts}")
+    private Integer maxPartAttempts;
+
+    /**
+     * S3 only rejects a part below its 5 MiB minimum at CompleteMultipartUpload, after every part has been sent, so
+     * the settings are checked at startup. A part larger than the threshold would make some multipart uploads a
+     * single part.
+     */
+    @PostConstruct
+    void validateMultipartSettings() {
+        if (multipartPartSize.compareTo(MIN_PART_SIZE) < 0) {
+            throw new IllegalStateException("aws.s3.multipart.part-size must be at least " + MIN_PART_SIZE
+                    + ", the S3 minimum for all but the last part, but is " + multipartPartSize);
+        }
+        if (multipartPartSize.compareTo(multipartThreshold) > 0) {
+            throw new IllegalStateException("aws.s3.multipart.part-size (" + multipartPartSize
+                    + ") must not be larger than aws.s3.multipart.threshold (" + multipartThreshold + ")");
+        }
+    }
+
+    public void uploadImage(InputStream inputStream, String key, Long imageSize, String contentType) {
+        validateUploadParameters(inputStream, key, imageSize, contentType);
+
+        boolean multipart = imageSize >= multipartThreshold.toBytes();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            if (multipart) {
+                uploadMultipart(inputStream, key, imageSize, contentType);
+            } else {
+                uploadSingle(inputStream, key, imageSize, contentType);
+            }
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("s3.upload")
+                    .description("Time to upload an image to S3")
+                    .tag("outcome", outcome)
+                    .tag("transfer", multipart ? "multipart" : "single")
+                    .tag("size", sizeClass(imageSize))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            DistributionSummary.builder("s3.upload.size")
+                    .baseUnit("bytes")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(imageSize);
+        }
+    }
+
+    public void deleteImage(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("S3 key cannot be null or empty");
+        }
+
+        try {
+            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+
+            s3Client.deleteObject(deleteObjectRequest);
+            log.info("Successfully deleted image with key: {}", key);
 
-    public void uploadImage(InputStream inputStream, String key, Long imageSize) {
-        validateUploadParameters(inputStream, key, imageSize);
-        
+        } catch (S3Exception e) {
+            log.error("Failed to delete image with key: {}. Error: {}", key, e.getMessage());
+            throw new RuntimeException("Failed to delete image from S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the keys with DeleteObjects requests of up to 1000 keys and returns the error of every key S3 didn't
+     * delete. Keys that don't exist count as deleted.
+     */
+    public Map<String, String> deleteImages(List<String> keys) {
+        Map<String, String> errors = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + MAX_KEYS_PER_DELETE));
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "failure";
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder()
+                                .objects(batch.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                .quiet(true)
+                                .build())
+                        .build());
+                response.errors().forEach(error -> errors.put(error.key(), error.code() + ": " + error.message()));
+                outcome = response.errors().isEmpty() ? "success" : "partial";
+            } catch (SdkException e) {
+                log.error("Failed to delete {} images. Error: {}", batch.size(), e.getMessage());
+                batch.forEach(key -> errors.put(key, e.getMessage()));
+            } finally {
+                sample.stop(Timer.builder("s3.delete")
+                        .description("Time of one S3 DeleteObjects request")
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+        }
+        log.info("Deleted {} of {} images", keys.size() - errors.size(), keys.size());
+        return errors;
+    }
+
+    /**
+     * Lists the whole bucket, handing each page of up to 1000 objects to the consumer as it arrives.
+     */
+    public void forEachObjectPage(Consumer<List<S3Object>> pageConsumer) {
+        s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).build())
+                .forEach(page -> pageConsumer.accept(page.contents()));
+    }
+
+    public InputStream downloadImage(String key) {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+        } catch (S3Exception e) {
+            log.error("Failed to download image with key: {}. Error: {}", key, e.getMessage());
+            throw new RuntimeException("Failed to download image from S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Signs a PUT that only accepts exactly this content type and length, so the client uploads straight to S3
+     * without the bytes passing through the app.
+     */
+    public PresignedPutObjectRequest presignUpload(String key, String contentType, long contentLength) {
+        PresignedPutObjectRequest presignedRequest = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(presignedUploadExpiry)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .build())
+                .build());
+        log.debug("Presigned upload for key: {}, expires at: {}", key, presignedRequest.expiration());
+        return presignedRequest;
+    }
+
+    public Optional<HeadObjectResponse> findObject(String key) {
+        try {
+            return Optional.of(s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            log.error("Failed to look up image with key: {}. Error: {}", key, e.getMessage());
+            throw new RuntimeException("Failed to look up image in S3: " + e.getMessage(), e);
+        }
+    }
+
+    private void uploadSingle(InputStream inputStream, String key, long imageSize, String contentType) {
         try {
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
-                    .contentType("image/jpeg")
+                    .contentType(contentType)
                     .build();
 
             s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, imageSize));
-            log.info("Successfully uploaded image with key: {}", key);
+            log.debug("Successfully uploaded image with key: {}", key);
             
         } catch (S3Exception e) {
             log.error("Failed to upload image with key: {}. Error: {}", key, e.getMessage());
@@ -43,15 +262,140 @@ public class S3Service {
         }
     }
 
-    public String getImageUrl(String s3Key) {
-        if (s3Key == null || s3Key.trim().isEmpty()) {
-            throw new IllegalArgumentException("S3 key cannot be null or empty");
+    /**
+     * Reads the stream part by part and uploads the parts in parallel on the transfer pool.
+     * At most {@code maxConcurrentParts} buffers are in flight, so memory stays bounded by
+     * {@code maxConcurrentParts * partSize}. Any failure aborts the upload so no parts are left dangling.
+     */
+    private void uploadMultipart(InputStream inputStream, String key, long imageSize, String contentType) {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build())
+                .uploadId();
+        log.debug("Started multipart upload {} for key: {}, size: {} bytes", uploadId, key, imageSize);
+
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        Semaphore partsInFlight = new Semaphore(maxConcurrentParts);
+
+        try {
+            long remaining = imageSize;
+            int partNumber = 1;
+
+            while (remaining > 0) {
+                int length = (int) Math.min(multipartPartSize.toBytes(), remaining);
+                byte[] part = inputStream.readNBytes(length);
+                if (part.length != length) {
+                    throw new IOException("Stream ended after " + (imageSize - remaining + part.length)
+                            + " of " + imageSize + " bytes");
+                }
+
+                partsInFlight.acquire();
+                failFastOnFailedPart(parts);
+                int currentPartNumber = partNumber++;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(key, uploadId, currentPartNumber, part), s3TransferExecutor)
+                        .whenComplete((completedPart, e) -> partsInFlight.release()));
+                remaining -= length;
+            }
+
+            List<CompletedPart> completedParts = parts.stream().map(CompletableFuture::join).toList();
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Successfully uploaded image with key: {} in {} parts", key, completedParts.size());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(key, uploadId, parts);
+            throw new RuntimeException("Interrupted while uploading image to S3", e);
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to upload image with key: {}. Error: {}", key, cause.getMessage());
+            abortMultipartUpload(key, uploadId, parts);
+            throw new RuntimeException("Failed to upload image to S3: " + cause.getMessage(), cause);
         }
-        
-        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, bucketRegion, s3Key);
     }
-    
-    private void validateUploadParameters(InputStream inputStream, String key, Long imageSize) {
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] part) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) part.length)
+                                .build(),
+                        RequestBody.fromBytes(part));
+                log.debug("Uploaded part {} of key: {} on attempt {}", partNumber, key, attempt);
+                return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+
+            } catch (SdkException e) {
+                if (attempt >= maxPartAttempts) {
+                    throw e;
+                }
+                log.warn("Failed to upload part {} of key: {} on attempt {}, retrying. Error: {}",
+                        partNumber, key, attempt, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void failFastOnFailedPart(List<CompletableFuture<CompletedPart>> parts) {
+        parts.stream()
+                .filter(CompletableFuture::isCompletedExceptionally)
+                .findFirst()
+                .ifPresent(CompletableFuture::join);
+    }
+
+    /**
+     * Waits for the parts still in flight first. A part that finishes after the abort would be stored anyway and
+     * leave storage behind, or race the abort.
+     */
+    private void abortMultipartUpload(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(e -> null)
+                .join();
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            log.info("Aborted multipart upload {} for key: {}", uploadId, key);
+        } catch (SdkException e) {
+            log.error("Failed to abort multipart upload {} for key: {}. Error: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(PART_RETRY_BACKOFF.toMillis() * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying part upload", e);
+        }
+    }
+
+    /**
+     * Buckets the payload size into a handful of classes so the timer can be broken down by size
+     * without one time series per distinct byte count.
+     */
+    private static String sizeClass(long imageSize) {
+        for (int i = 0; i < SIZE_CLASS_LIMITS.length; i++) {
+            if (imageSize < SIZE_CLASS_LIMITS[i].toBytes()) {
+                return "lt_" + SIZE_CLASS_NAMES[i];
+            }
+        }
+        return "gte_" + SIZE_CLASS_NAMES[SIZE_CLASS_NAMES.length - 1];
+    }
+
+    private void validateUploadParameters(InputStream inputStream, String key, Long imageSize, String contentType) {
         if (inputStream == null) {
             throw new IllegalArgumentException("Input stream cannot be null");
         }
@@ -61,5 +405,8 @@ public class S3Service {
         if (imageSize == null || imageSize <= 0) {
             throw new IllegalArgumentException("Image size must be positive");
         }
+        if (contentType == null || contentType.isBlank()) {
+            throw new IllegalArgumentException("Content type cannot be null or empty");
+        }
     }
 }
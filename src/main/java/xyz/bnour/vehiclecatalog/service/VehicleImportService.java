@@ -0,0 +1,225 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.response.VehicleImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk-loads vehicles from CSV or NDJSON. The body is parsed one record at a time and valid rows are inserted in
+ * JDBC batches, each committed on its own, so memory stays flat however large the input is. Rows that fail parsing,
+ * validation or the insert are reported by line and do not stop the import.
+ */
+@Service
+@Slf4j
+@Timed(value = "vehicle.import.service", histogram = true)
+public class VehicleImportService {
+    private static final Set<String> CSV_COLUMNS = Set.of(
+            "name", "model", "horsepower", "trunkCapacity", "modelYear", "transmission", "drivetrain", "price");
+
+    private final VehicleRepository vehicleRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+
+    @Value("${xyz.bnour.vehicle-catalog.import.batch-size}")
+    private Integer batchSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.import.max-reported-errors}")
+    private Integer maxReportedErrors;
+
+    public VehicleImportService(VehicleRepository vehicleRepository, Validator validator,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.vehicleRepository = vehicleRepository;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.jsonReader = objectMapper.readerFor(Vehicle.class);
+        this.csvReader = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .build()
+                .readerFor(Vehicle.class)
+                .with(CsvSchema.emptySchema().withHeader());
+    }
+
+    public VehicleImportReport importVehicles(InputStream body, Format format) {
+        log.info("Importing vehicles from {}", format);
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            switch (format) {
+                case CSV -> readCsv(reader, run);
+                case NDJSON -> readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read vehicle import after {} imported rows", run.imported, e);
+            throw new UncheckedIOException("Failed to read vehicle import", e);
+        }
+        run.flush();
+
+        meterRegistry.counter("vehicle.import.rows", "result", "imported").increment(run.imported);
+        meterRegistry.counter("vehicle.import.rows", "result", "failed").increment(run.failed);
+        log.info("Imported {} vehicles, {} rows failed", run.imported, run.failed);
+        return new VehicleImportReport(run.imported, run.failed, run.errors, run.failed > run.errors.size());
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(line, jsonReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                run.reject(line, e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        try (MappingIterator<Vehicle> rows = csvReader.readValues(reader)) {
+            boolean hasNext = nextCsvRow(rows, run);
+            // The header is only read with the first row
+            checkCsvColumns((CsvSchema) rows.getParser().getSchema());
+            while (hasNext) {
+                long line = rows.getParser().currentLocation().getLineNr();
+                try {
+                    run.accept(line, rows.nextValue());
+                } catch (JsonProcessingException e) {
+                    run.reject(line, e.getOriginalMessage());
+                }
+                hasNext = nextCsvRow(rows, run);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next record. Malformed CSV, e.g. an unterminated quote, leaves no record boundary to resume at,
+     * so it ends the import after reporting the line.
+     */
+    private boolean nextCsvRow(MappingIterator<Vehicle> rows, ImportRun run) throws IOException {
+        try {
+            return rows.hasNextValue();
+        } catch (JsonProcessingException e) {
+            run.reject(rows.getParser().currentLocation().getLineNr(), e.getOriginalMessage());
+            return false;
+        }
+    }
+
+    private void checkCsvColumns(CsvSchema schema) {
+        List<String> unknownColumns = schema.getColumnNames().stream()
+                .filter(column -> !CSV_COLUMNS.contains(column))
+                .toList();
+        if (!unknownColumns.isEmpty()) {
+            throw new IllegalArgumentException("Unknown CSV columns: " + String.join(", ", unknownColumns)
+                    + ". Expected a header with: " + String.join(", ", CSV_COLUMNS.stream().sorted().toList()));
+        }
+    }
+
+    private String describe(Set<ConstraintViolation<Vehicle>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private record PendingRow(long line, Vehicle vehicle) {
+    }
+
+    private class ImportRun {
+        private final List<PendingRow> batch = new ArrayList<>(batchSize);
+        private final List<VehicleImportReport.RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void accept(long line, Vehicle vehicle) {
+            if (vehicle == null) {
+                reject(line, "Expected a vehicle");
+                return;
+            }
+            Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+            if (!violations.isEmpty()) {
+                reject(line, describe(violations));
+                return;
+            }
+            batch.add(new PendingRow(line, vehicle));
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new VehicleImportReport.RowError(line, message));
+            }
+        }
+
+        /**
+         * Inserts the pending rows in one transaction. If the database rejects the batch, the rows are retried one
+         * by one so the report can name the lines at fault and the rest still go in.
+         */
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Vehicle> vehicles = batch.stream().map(PendingRow::vehicle).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> vehicleRepository.insertAll(vehicles));
+                imported += vehicles.size();
+            } catch (DataAccessException e) {
+                log.warn("Failed to insert batch of {} vehicles, retrying one by one. Error: {}",
+                        vehicles.size(), e.getMostSpecificCause().getMessage());
+                batch.forEach(this::insertOne);
+            }
+            batch.clear();
+        }
+
+        private void insertOne(PendingRow row) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> vehicleRepository.insertAll(List.of(row.vehicle())));
+                imported++;
+            } catch (DataAccessException e) {
+                log.debug("Rejected vehicle on line {}. Error: {}", row.line(), e.getMostSpecificCause().getMessage());
+                reject(row.line(), "Rejected by the database, check field lengths and the price range");
+            }
+        }
+    }
+}
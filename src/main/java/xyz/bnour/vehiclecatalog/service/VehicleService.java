@@ -1,67 +1,187 @@
 package xyz.bnour.vehiclecatalog.service;
 
-import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.OffsetPageToken;
+import xyz.bnour.vehiclecatalog.pagination.VehicleCursor;
+import xyz.bnour.vehiclecatalog.pagination.VehicleSort;
 import xyz.bnour.vehiclecatalog.repository.ImageRepository;
 import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.repository.VehicleSpecifications;
+import xyz.bnour.vehiclecatalog.request.VehicleBulkUpdate;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.request.VehiclePatch;
+import xyz.bnour.vehiclecatalog.request.VehicleSelection;
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import xyz.bnour.vehiclecatalog.response.VehicleBulkResult;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
 import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
+@Timed(value = "vehicle.service", histogram = true)
 public class VehicleService {
+    private static final Pattern SEARCH_TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_SEARCH_TERMS = 8;
+
     private final VehicleRepository vehicleRepository;
     private final ImageRepository imageRepository;
+    private final ImageUrlService imageUrlService;
+    private final S3CleanupService s3CleanupService;
     
     @Value("${xyz.bnour.vehicle-catalog.max-num-of-images-per-vehicle}")
     private Integer maxNumberOfImagesPerVehicle;
 
-    public List<VehicleResponse> getAll() {
-        log.info("Fetching all vehicles");
-        List<Vehicle> vehicles = vehicleRepository.findAll();
+    @Value("${xyz.bnour.vehicle-catalog.page-size.default}")
+    private Integer defaultPageSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.page-size.max}")
+    private Integer maxPageSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.export.batch-size}")
+    private Integer exportBatchSize;
+
+    @Value("${xyz.bnour.vehicle-catalog.bulk.max-vehicles}")
+    private Integer bulkMaxVehicles;
+
+    @Value("${xyz.bnour.vehicle-catalog.bulk.batch-size}")
+    private Integer bulkBatchSize;
+
+    public PageResponse<VehicleResponse> getAll(VehicleFilter filter, String sort, String pageToken, Integer size) {
+        int pageSize = resolvePageSize(size);
+        VehicleSort vehicleSort = VehicleSort.parse(sort);
+        log.debug("Fetching vehicles page, size: {}, sort: {} {}, continuing: {}",
+                pageSize, vehicleSort.getField(), vehicleSort.getDirection(), pageToken != null);
+        List<VehicleDetails> vehicles = findVehiclePage(filter, vehicleSort, pageToken, pageSize + 1);
         log.debug("Found {} vehicles in database", vehicles.size());
-        
-        List<VehicleResponse> responses = new ArrayList<>();
 
-        for (Vehicle vehicle : vehicles) {
-            List<Image> images = getVehicleImages(vehicle.getId());
-            responses.add(new VehicleResponse(vehicle, images));
+        boolean hasNextPage = vehicles.size() > pageSize;
+        if (hasNextPage) {
+            vehicles = vehicles.subList(0, pageSize);
         }
 
-        log.info("Successfully retrieved {} vehicles with their images", responses.size());
-        return responses;
+        List<VehicleResponse> responses = toVehicleResponses(vehicles);
+
+        String nextPageToken = null;
+        if (hasNextPage) {
+            nextPageToken = VehicleCursor.after(vehicleSort, vehicles.get(vehicles.size() - 1)).encode();
+        }
+
+        log.debug("Successfully retrieved {} vehicles with their images", responses.size());
+        return new PageResponse<>(responses, nextPageToken);
     }
 
+    /**
+     * Ranked search over vehicle name and model. Every word of the query has to match the start of a word
+     * in the name or model, so "golf gt" finds a "Golf GTI".
+     */
+    public PageResponse<VehicleResponse> search(String query, String pageToken, Integer size) {
+        int pageSize = resolvePageSize(size);
+        List<String> terms = toSearchTerms(query);
+        long offset = OffsetPageToken.decode(pageToken);
+        log.debug("Searching vehicles for {}, size: {}, offset: {}", terms, pageSize, offset);
+
+        List<UUID> vehicleIds = vehicleRepository.searchIds(terms, offset, Limit.of(pageSize + 1));
+        boolean hasNextPage = vehicleIds.size() > pageSize;
+        if (hasNextPage) {
+            vehicleIds = vehicleIds.subList(0, pageSize);
+        }
+
+        List<VehicleResponse> responses = toVehicleResponses(findVehicleDetailsInOrder(vehicleIds));
+        String nextPageToken = hasNextPage ? OffsetPageToken.encode(offset + pageSize) : null;
+
+        log.debug("Found {} vehicles matching {}", responses.size(), terms);
+        return new PageResponse<>(responses, nextPageToken);
+    }
+
+    /**
+     * Streams every vehicle, with its images, to the consumer through a server-side cursor.
+     * Rows are projected straight into DTOs and images are fetched once per batch,
+     * so memory stays flat regardless of the catalog size.
+     */
+    public long exportAll(Consumer<VehicleResponse> consumer) {
+        log.info("Exporting all vehicles in batches of {}", exportBatchSize);
+        long exported = 0;
+
+        try (Stream<VehicleDetails> vehicles = vehicleRepository.streamAll()) {
+            Iterator<VehicleDetails> iterator = vehicles.iterator();
+            List<VehicleDetails> batch = new ArrayList<>(exportBatchSize);
+
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == exportBatchSize || !iterator.hasNext()) {
+                    toVehicleResponses(batch).forEach(consumer);
+                    exported += batch.size();
+                    log.debug("Exported batch of {} vehicles", batch.size());
+                    batch.clear();
+                }
+            }
+        }
+
+        log.info("Successfully exported {} vehicles", exported);
+        return exported;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.VEHICLES_CACHE, key = "T(java.util.UUID).fromString(#id)")
     public VehicleResponse getById(String id) {
-        log.info("Fetching vehicle by ID: {}", id);
-        Vehicle vehicle = findVehicleById(id);
-        List<Image> images = getVehicleImages(vehicle.getId());
-        log.info("Successfully retrieved vehicle: {} {} with {} images", vehicle.getName(), vehicle.getModel(), images.size());
+        log.debug("Fetching vehicle by ID: {}", id);
+        VehicleDetails vehicle = findVehicleDetailsById(id);
+        List<ImageResponse> images = getVehicleImages(vehicle.getId());
+        log.debug("Successfully retrieved vehicle: {} {} with {} images", vehicle.getName(), vehicle.getModel(), images.size());
         return new VehicleResponse(vehicle, images);
     }
 
+    public ResourceVersion getVersion(String id) {
+        log.debug("Fetching version of vehicle ID: {}", id);
+        return vehicleRepository.findVersionById(UUID.fromString(id))
+                .map(imageUrlService::withUrlWindow)
+                .orElseThrow(() -> {
+                    log.error("Vehicle not found with ID: {}", id);
+                    return new EntityNotFoundException("Vehicle not found with ID: " + id);
+                });
+    }
+
     @Transactional
     public Vehicle create(Vehicle vehicle) {
-        log.info("Creating new vehicle: {} {}", vehicle.getName(), vehicle.getModel());
+        log.debug("Creating new vehicle: {} {}", vehicle.getName(), vehicle.getModel());
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
         log.info("Successfully created vehicle with ID: {}", savedVehicle.getId());
         return savedVehicle;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#updatedVehicle.id")
     public Vehicle update(Vehicle updatedVehicle) {
-        log.info("Updating vehicle with ID: {}", updatedVehicle.getId());
+        log.debug("Updating vehicle with ID: {}", updatedVehicle.getId());
         Vehicle existingVehicle = vehicleRepository.findById(updatedVehicle.getId())
                 .orElseThrow(() -> {
                     log.error("Vehicle not found for update with ID: {}", updatedVehicle.getId());
@@ -75,38 +195,207 @@ public class VehicleService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, key = "T(java.util.UUID).fromString(#id)")
     public void deleteById(String id) {
-        log.info("Deleting vehicle with ID: {}", id);
+        log.debug("Deleting vehicle with ID: {}", id);
         UUID vehicleId = UUID.fromString(id);
-        if (!vehicleRepository.existsById(vehicleId)) {
+        // Locked like a bulk selection, so a concurrent upload can't add an image while the vehicle is deleted
+        if (vehicleRepository.findIdsByIdInForUpdate(List.of(vehicleId)).isEmpty()) {
             log.error("Vehicle not found for deletion with ID: {}", id);
             throw new EntityNotFoundException("Vehicle not found with ID: " + id);
         }
-        vehicleRepository.deleteById(vehicleId);
+        deleteVehicles(List.of(vehicleId));
         log.info("Successfully deleted vehicle with ID: {}", id);
     }
 
-    private Vehicle findVehicleById(String id) {
+    /**
+     * Deletes the selected vehicles and their images with a few set-based statements per chunk of ids instead of
+     * cascading entity by entity. The selection is locked first, so it can't gain images while it is deleted.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, allEntries = true)
+    public VehicleBulkResult deleteAll(VehicleSelection selection) {
+        List<UUID> vehicleIds = lockSelection(selection);
+        log.debug("Bulk deleting {} vehicles", vehicleIds.size());
+        long images = deleteVehicles(vehicleIds);
+        log.info("Successfully bulk deleted {} vehicles with {} images", vehicleIds.size(), images);
+        return new VehicleBulkResult(vehicleIds.size(), images);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, allEntries = true)
+    public VehicleBulkResult updateAll(VehicleBulkUpdate bulkUpdate) {
+        VehiclePatch patch = bulkUpdate.getPatch();
+        checkPatch(patch);
+        List<UUID> vehicleIds = lockSelection(bulkUpdate.getSelection());
+        log.debug("Bulk updating {} vehicles", vehicleIds.size());
+        long updated = 0;
+        for (List<UUID> chunk : chunks(vehicleIds)) {
+            updated += vehicleRepository.updateAll(chunk, patch);
+        }
+        log.info("Successfully bulk updated {} vehicles", updated);
+        return new VehicleBulkResult(updated, 0);
+    }
+
+    /**
+     * Image rows go in one statement per chunk; their objects are removed later by the sweeper.
+     */
+    private long deleteVehicles(List<UUID> vehicleIds) {
+        List<String> s3Keys = new ArrayList<>();
+        long images = 0;
+        for (List<UUID> chunk : chunks(vehicleIds)) {
+            s3Keys.addAll(imageRepository.findS3KeysByVehicleIdIn(chunk));
+            images += imageRepository.deleteAllByVehicleIdIn(chunk);
+            vehicleRepository.deleteAllByIdIn(chunk);
+        }
+        s3CleanupService.scheduleDeletion(s3Keys);
+        return images;
+    }
+
+    private List<UUID> lockSelection(VehicleSelection selection) {
+        if (selection == null || (selection.getIds() == null) == (selection.getFilter() == null)) {
+            throw new IllegalArgumentException("Select vehicles either by ids or by filter");
+        }
+        if (selection.getFilter() != null) {
+            if (VehicleSpecifications.isUnrestricted(selection.getFilter())) {
+                throw new IllegalArgumentException("Bulk filter must restrict at least one field");
+            }
+            List<UUID> vehicleIds = vehicleRepository.findIdsForUpdate(
+                    VehicleSpecifications.matching(selection.getFilter()), Limit.of(bulkMaxVehicles + 1));
+            checkBulkSize(vehicleIds.size());
+            return vehicleIds;
+        }
+
+        List<UUID> requestedIds = selection.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        checkBulkSize(requestedIds.size());
+        List<UUID> vehicleIds = new ArrayList<>(requestedIds.size());
+        for (List<UUID> chunk : chunks(requestedIds)) {
+            vehicleIds.addAll(vehicleRepository.findIdsByIdInForUpdate(chunk));
+        }
+        return vehicleIds;
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxVehicles) {
+            throw new IllegalArgumentException("Bulk operations are limited to " + bulkMaxVehicles + " vehicles");
+        }
+    }
+
+    private void checkPatch(VehiclePatch patch) {
+        if (Stream.of(patch.getPrice(), patch.getPriceChangePercent(), patch.getHorsepower(), patch.getTrunkCapacity(),
+                patch.getModelYear(), patch.getTransmission(), patch.getDrivetrain()).allMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Patch must set at least one field");
+        }
+        if (patch.getPrice() != null && patch.getPriceChangePercent() != null) {
+            throw new IllegalArgumentException("Set either price or priceChangePercent, not both");
+        }
+    }
+
+    /**
+     * Splits ids into chunks of the bulk batch size, which keeps IN lists within what every database accepts.
+     */
+    private List<List<UUID>> chunks(List<UUID> ids) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += bulkBatchSize) {
+            chunks.add(ids.subList(from, Math.min(from + bulkBatchSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private List<VehicleResponse> toVehicleResponses(List<VehicleDetails> vehicles) {
+        Map<UUID, List<ImageResponse>> imagesByVehicleId = getVehicleImages(vehicles);
+        List<VehicleResponse> responses = new ArrayList<>(vehicles.size());
+
+        for (VehicleDetails vehicle : vehicles) {
+            List<ImageResponse> images = imagesByVehicleId.getOrDefault(vehicle.getId(), List.of());
+            responses.add(new VehicleResponse(vehicle, images));
+        }
+        return responses;
+    }
+
+    private List<VehicleDetails> findVehiclePage(VehicleFilter filter, VehicleSort sort, String pageToken, int limit) {
+        Specification<Vehicle> specification = VehicleSpecifications.matching(filter);
+        if (pageToken != null && !pageToken.isBlank()) {
+            VehicleCursor cursor = VehicleCursor.decode(pageToken, sort);
+            log.debug("Continuing after vehicle {} with {} {}", cursor.getId(), sort.getField(), cursor.getValue());
+            specification = specification.and(VehicleSpecifications.after(cursor));
+        }
+        return vehicleRepository.findPage(specification, sort, Limit.of(limit));
+    }
+
+    private List<VehicleDetails> findVehicleDetailsInOrder(List<UUID> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, VehicleDetails> vehiclesById = vehicleRepository.findDetailsByIdIn(vehicleIds).stream()
+                .collect(Collectors.toMap(VehicleDetails::getId, Function.identity()));
+        return vehicleIds.stream()
+                .map(vehiclesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<String> toSearchTerms(String query) {
+        List<String> terms = query == null ? List.of() : Arrays.stream(SEARCH_TERM_SEPARATOR.split(query.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_SEARCH_TERMS)
+                .toList();
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one word");
+        }
+        return terms;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private VehicleDetails findVehicleDetailsById(String id) {
         log.debug("Looking up vehicle by ID: {}", id);
-        return vehicleRepository.findById(UUID.fromString(id))
+        return vehicleRepository.findDetailsById(UUID.fromString(id))
                 .orElseThrow(() -> {
                     log.error("Vehicle not found with ID: {}", id);
                     return new EntityNotFoundException("Vehicle not found with ID: " + id);
                 });
     }
 
-    private List<Image> getVehicleImages(UUID vehicleId) {
+    private List<ImageResponse> getVehicleImages(UUID vehicleId) {
         log.debug("Fetching images for vehicle ID: {}", vehicleId);
-        List<Image> images = imageRepository.findAllByVehicleId(vehicleId);
+        List<ImageResponse> images = imageUrlService.withUrls(imageRepository.findResponsesByVehicleId(vehicleId));
+        validateImageCount(vehicleId, images.size());
+        log.debug("Found {} images for vehicle ID: {}", images.size(), vehicleId);
+        return images;
+    }
+
+    private Map<UUID, List<ImageResponse>> getVehicleImages(List<VehicleDetails> vehicles) {
+        if (vehicles.isEmpty()) {
+            return Map.of();
+        }
 
-        if (images.size() > maxNumberOfImagesPerVehicle) {
-            log.error("Vehicle {} has {} images, exceeding limit of {}", vehicleId, images.size(), maxNumberOfImagesPerVehicle);
-            throw new RuntimeException("Vehicle " + vehicleId + " has " + images.size() + 
+        List<UUID> vehicleIds = vehicles.stream().map(VehicleDetails::getId).toList();
+        log.debug("Fetching images for {} vehicles in one query", vehicleIds.size());
+        Map<UUID, List<ImageResponse>> imagesByVehicleId = imageRepository.findResponsesByVehicleIdIn(vehicleIds)
+                .stream()
+                .map(imageUrlService::withUrl)
+                .collect(Collectors.groupingBy(ImageResponse::getVehicleId));
+
+        imagesByVehicleId.forEach((vehicleId, images) -> validateImageCount(vehicleId, images.size()));
+        log.debug("Found images for {} of {} vehicles", imagesByVehicleId.size(), vehicleIds.size());
+        return imagesByVehicleId;
+    }
+
+    private void validateImageCount(UUID vehicleId, int imageCount) {
+        if (imageCount > maxNumberOfImagesPerVehicle) {
+            log.error("Vehicle {} has {} images, exceeding limit of {}", vehicleId, imageCount, maxNumberOfImagesPerVehicle);
+            throw new RuntimeException("Vehicle " + vehicleId + " has " + imageCount + 
                     " images, exceeding limit of " + maxNumberOfImagesPerVehicle);
         }
-        
-        log.debug("Found {} images for vehicle ID: {}", images.size(), vehicleId);
-        return images;
     }
 
     private void updateVehicleFields(Vehicle existing, Vehicle updated) {
@@ -0,0 +1,81 @@
+package xyz.bnour.vehiclecatalog.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatementCountFilter statementCountFilter = new StatementCountFilter(meterRegistry);
+    private final RequestStatementCounter requestStatementCounter = new RequestStatementCounter();
+
+    @AfterEach
+    void tearDown() {
+        RequestStatementCounter.stop();
+    }
+
+    @Test
+    void doFilter_ShouldRecordStatementsTaggedByMethodAndRouteTemplate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/vehicles/42");
+        FilterChain filterChain = (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/vehicles/{id}");
+            requestStatementCounter.inspect("select * from vehicle where id = ?");
+            requestStatementCounter.inspect("select * from image where vehicle_id = ?");
+        };
+
+        statementCountFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        DistributionSummary summary = meterRegistry.get("hibernate.statements.per.request")
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/vehicles/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void doFilter_ShouldStopCountingOnTheThreadAfterTheRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/vehicles");
+        FilterChain filterChain = (req, res) -> requestStatementCounter.inspect("select * from vehicle");
+
+        statementCountFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        requestStatementCounter.inspect("select * from vehicle");
+
+        assertEquals(0, RequestStatementCounter.stop());
+        assertEquals(1, meterRegistry.get("hibernate.statements.per.request").tag("uri", "UNKNOWN").summary()
+                .totalAmount());
+    }
+
+    @Test
+    void doFilter_WhenTheRequestFails_ShouldStillRecordAndStopCounting() {
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/v1/vehicles/42");
+        FilterChain filterChain = (req, res) -> {
+            requestStatementCounter.inspect("delete from vehicle where id = ?");
+            throw new IllegalStateException("Boom");
+        };
+
+        assertThrows(IllegalStateException.class,
+                () -> statementCountFilter.doFilter(request, new MockHttpServletResponse(), filterChain));
+
+        assertEquals(0, RequestStatementCounter.stop());
+        assertEquals(1, meterRegistry.get("hibernate.statements.per.request").tag("method", "DELETE").summary()
+                .totalAmount());
+    }
+
+    @Test
+    void doFilter_ForActuatorRequests_ShouldNotRecord() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+
+        statementCountFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+
+        assertNull(meterRegistry.find("hibernate.statements.per.request").summary());
+    }
+}
@@ -0,0 +1,59 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.S3Deletion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class S3DeletionRepositoryTest {
+
+    @Autowired
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(new S3Deletion("later.jpg", now.minusMinutes(1)));
+        entityManager.persist(new S3Deletion("first.jpg", now.minusMinutes(10)));
+        entityManager.persist(new S3Deletion("not-yet.jpg", now.plusMinutes(5)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findDueForUpdate_ShouldReturnDueRowsOldestFirstUpToTheLimit() {
+        List<S3Deletion> due = s3DeletionRepository.findDueForUpdate(now, Limit.of(1));
+
+        assertEquals(List.of("first.jpg"), due.stream().map(S3Deletion::getS3Key).toList());
+        assertEquals(2, s3DeletionRepository.findDueForUpdate(now, Limit.of(10)).size());
+    }
+
+    @Test
+    void findPendingS3Keys_ShouldReturnOnlyScheduledKeys() {
+        List<String> pending = s3DeletionRepository.findPendingS3Keys(List.of("first.jpg", "unknown.jpg"));
+
+        assertEquals(List.of("first.jpg"), pending);
+    }
+
+    @Test
+    void deleteAllByS3KeyIn_ShouldDeleteOnlyRowsOfTheGivenKeys() {
+        int deleted = s3DeletionRepository.deleteAllByS3KeyIn(List.of("first.jpg", "unknown.jpg"));
+
+        assertEquals(1, deleted);
+        assertEquals(List.of("later.jpg"),
+                s3DeletionRepository.findPendingS3Keys(List.of("first.jpg", "later.jpg")));
+    }
+}
@@ -0,0 +1,81 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations against the embedded H2 database and checks that the hot query shapes are planned
+ * on their indexes rather than on a table scan.
+ */
+@DataJpaTest
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void imagesByVehicle_ShouldUseVehicleIdIndex() {
+        // H2 backs every foreign key with an index of its own, Postgres doesn't, so also check ours exists
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_IMAGE_VEHICLE_ID'",
+                Integer.class);
+        assertEquals(1, indexes);
+
+        String plan = explain("SELECT id FROM image WHERE vehicle_id = RANDOM_UUID()");
+        assertFalse(plan.contains("tableScan"), () -> "Expected an index lookup in plan:\n" + plan);
+    }
+
+    @Test
+    void vehiclePage_ShouldUseCreatedAtIdIndex() {
+        assertPlanUses("IDX_VEHICLE_CREATED_AT_ID",
+                "SELECT id FROM vehicle WHERE (created_at, id) < (CURRENT_TIMESTAMP, RANDOM_UUID()) " +
+                "ORDER BY created_at DESC, id DESC LIMIT 20");
+    }
+
+    @Test
+    void priceRange_ShouldUsePriceIndex() {
+        assertPlanUses("IDX_VEHICLE_PRICE_ID",
+                "SELECT id FROM vehicle WHERE price BETWEEN 10000 AND 20000");
+    }
+
+    @Test
+    void modelYearRange_ShouldUseModelYearIndex() {
+        assertPlanUses("IDX_VEHICLE_MODEL_YEAR_ID",
+                "SELECT id FROM vehicle WHERE model_year >= 2020");
+    }
+
+    @Test
+    void horsepowerRange_ShouldUseHorsepowerIndex() {
+        assertPlanUses("IDX_VEHICLE_HORSEPOWER",
+                "SELECT id FROM vehicle WHERE horsepower > 200");
+    }
+
+    @Test
+    void transmissionAndDrivetrainByNewest_ShouldUseCompositeIndex() {
+        assertPlanUses("IDX_VEHICLE_TRANSMISSION_DRIVETRAIN_CREATED_AT_ID",
+                "SELECT id FROM vehicle WHERE transmission = 'AUTOMATIC' AND drivetrain = 'AWD' " +
+                "ORDER BY created_at DESC, id DESC LIMIT 20");
+    }
+
+    @Test
+    void transmissionAndDrivetrainByPrice_ShouldUseCompositeIndex() {
+        assertPlanUses("IDX_VEHICLE_TRANSMISSION_DRIVETRAIN_PRICE_ID",
+                "SELECT id FROM vehicle WHERE transmission = 'AUTOMATIC' AND drivetrain = 'AWD' " +
+                "AND price <= 30000 ORDER BY price, id LIMIT 20");
+    }
+
+    private void assertPlanUses(String indexName, String query) {
+        String plan = explain(query);
+        assertTrue(plan.toUpperCase().contains(indexName), () -> "Expected " + indexName + " in plan:\n" + plan);
+    }
+
+    private String explain(String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+        assertNotNull(plan);
+        return plan;
+    }
+}
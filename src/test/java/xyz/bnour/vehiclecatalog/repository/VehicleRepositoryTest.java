@@ -0,0 +1,171 @@
+package xyz.bnour.vehiclecatalog.repository;
+
+import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.VehicleCursor;
+import xyz.bnour.vehiclecatalog.pagination.VehicleSort;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class VehicleRepositoryTest {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setName("Golf " + i);
+            vehicle.setModel("GTI");
+            vehicle.setModelYear(2020 + i);
+            vehicle.setPrice(new BigDecimal("30000.00"));
+            entityManager.persist(vehicle);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findPage_ShouldWalkAllVehiclesWithoutGapsOrDuplicates() {
+        List<VehicleDetails> seen = walk(new VehicleFilter(), VehicleSort.DEFAULT, 2);
+
+        assertEquals(5, seen.size());
+        assertEquals(5, seen.stream().map(VehicleDetails::getId).distinct().count());
+    }
+
+    @Test
+    void findPage_WithSameCreatedAt_ShouldBreakTiesById() {
+        LocalDateTime sameInstant = LocalDateTime.of(2025, 1, 1, 12, 0);
+        entityManager.getEntityManager()
+                .createQuery("update Vehicle v set v.createdAt = :createdAt")
+                .setParameter("createdAt", sameInstant)
+                .executeUpdate();
+
+        List<VehicleDetails> firstPage = vehicleRepository.findPage(
+                Specification.unrestricted(), VehicleSort.DEFAULT, Limit.of(3));
+        VehicleCursor cursor = VehicleCursor.after(VehicleSort.DEFAULT, firstPage.get(firstPage.size() - 1));
+        List<VehicleDetails> secondPage = vehicleRepository.findPage(
+                VehicleSpecifications.after(cursor), VehicleSort.DEFAULT, Limit.of(3));
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        secondPage.forEach(vehicle -> assertFalse(firstPage.stream()
+                .anyMatch(other -> other.getId().equals(vehicle.getId()))));
+    }
+
+    @Test
+    void findPage_WithFilterAndPriceSort_ShouldWalkOnlyMatchingVehiclesInOrder() {
+        entityManager.getEntityManager()
+                .createQuery("update Vehicle v set v.price = 25000 - v.modelYear, v.transmission = 'MANUAL' where v.modelYear >= 2022")
+                .executeUpdate();
+        VehicleFilter filter = new VehicleFilter();
+        filter.setMaxPrice(new BigDecimal("25000.00"));
+        filter.setMinModelYear(2022);
+        filter.setTransmission("MANUAL");
+        VehicleSort byPrice = new VehicleSort(VehicleSort.Field.PRICE, Sort.Direction.ASC);
+
+        List<VehicleDetails> seen = walk(filter, byPrice, 1);
+
+        assertEquals(List.of(2024, 2023, 2022), seen.stream().map(VehicleDetails::getModelYear).toList());
+    }
+
+    @Test
+    void searchIds_ShouldRequireEveryTermAndPage() {
+        assertEquals(5, vehicleRepository.searchIds(List.of("golf", "gti"), 0, Limit.of(10)).size());
+        assertEquals(1, vehicleRepository.searchIds(List.of("golf", "3"), 0, Limit.of(10)).size());
+        assertTrue(vehicleRepository.searchIds(List.of("golf", "polo"), 0, Limit.of(10)).isEmpty());
+
+        List<UUID> firstPage = vehicleRepository.searchIds(List.of("gti"), 0, Limit.of(3));
+        List<UUID> secondPage = vehicleRepository.searchIds(List.of("gti"), 3, Limit.of(3));
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        secondPage.forEach(id -> assertFalse(firstPage.contains(id)));
+    }
+
+    @Test
+    void findVersionById_ShouldChangeWhenImagesAreAddedOrRemoved() {
+        Vehicle vehicle = entityManager.getEntityManager()
+                .createQuery("select v from Vehicle v", Vehicle.class)
+                .setMaxResults(1)
+                .getSingleResult();
+        ResourceVersion withoutImages = vehicleRepository.findVersionById(vehicle.getId()).orElseThrow();
+
+        Image image = new Image();
+        image.setVehicle(vehicle);
+        image.setS3Key("golf.jpg");
+        entityManager.persistAndFlush(image);
+        ResourceVersion withImage = vehicleRepository.findVersionById(vehicle.getId()).orElseThrow();
+
+        entityManager.remove(image);
+        entityManager.flush();
+        ResourceVersion afterDelete = vehicleRepository.findVersionById(vehicle.getId()).orElseThrow();
+
+        assertNotEquals(withoutImages.getEtag(), withImage.getEtag());
+        assertTrue(withImage.getLastModified() >= withoutImages.getLastModified());
+        assertNotEquals(withImage.getEtag(), afterDelete.getEtag());
+        assertEquals(withoutImages.getEtag(), vehicleRepository.findVersionById(vehicle.getId()).orElseThrow().getEtag());
+        assertTrue(vehicleRepository.findVersionById(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void insertAll_ShouldAssignIdsAndTimestampsAndKeepNulls() {
+        Vehicle golf = new Vehicle();
+        golf.setName("Golf");
+        golf.setModel("R");
+        golf.setModelYear(2025);
+        golf.setHorsepower(333);
+        golf.setPrice(new BigDecimal("52000.50"));
+        Vehicle polo = new Vehicle();
+        polo.setName("Polo");
+        polo.setModel("GTI");
+        polo.setModelYear(2024);
+        polo.setPrice(new BigDecimal("29000.00"));
+
+        vehicleRepository.insertAll(List.of(golf, polo));
+
+        VehicleDetails inserted = vehicleRepository.findDetailsById(golf.getId()).orElseThrow();
+        assertEquals("R", inserted.getModel());
+        assertEquals(333, inserted.getHorsepower());
+        assertNull(inserted.getTrunkCapacity());
+        assertEquals(0, new BigDecimal("52000.50").compareTo(inserted.getPrice()));
+        assertNotNull(inserted.getCreatedAt());
+        assertTrue(vehicleRepository.findDetailsById(polo.getId()).isPresent());
+        assertEquals(7, vehicleRepository.count());
+    }
+
+    private List<VehicleDetails> walk(VehicleFilter filter, VehicleSort sort, int pageSize) {
+        List<VehicleDetails> seen = new ArrayList<>();
+        List<VehicleDetails> page = vehicleRepository.findPage(
+                VehicleSpecifications.matching(filter), sort, Limit.of(pageSize));
+
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            VehicleCursor cursor = VehicleCursor.after(sort, page.get(page.size() - 1));
+            page = vehicleRepository.findPage(
+                    VehicleSpecifications.matching(filter).and(VehicleSpecifications.after(cursor)), sort, Limit.of(pageSize));
+        }
+        return seen;
+    }
+}
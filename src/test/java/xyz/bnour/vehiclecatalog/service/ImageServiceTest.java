@@ -1,28 +1,56 @@
 package xyz.bnour.vehiclecatalog.service;
 
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
 import xyz.bnour.vehiclecatalog.entity.Image;
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
 import xyz.bnour.vehiclecatalog.repository.ImageRepository;
 import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.request.ImageUploadUrlRequest;
 import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ImageUploadResult;
+import xyz.bnour.vehiclecatalog.response.ImageUploadUrl;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +65,24 @@ class ImageServiceTest {
     @Mock
     private S3Service s3Service;
 
+    @Mock
+    private ImageUrlService imageUrlService;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Mock
+    private S3CleanupService s3CleanupService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache vehicleCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ImageService imageService;
 
@@ -48,6 +94,14 @@ class ImageServiceTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(imageService, "maxNumberOfImagesPerVehicle", 2);
+        ReflectionTestUtils.setField(imageService, "s3UploadExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(imageService, "maxUploadSize", DataSize.ofMegabytes(10));
+        lenient().when(cacheManager.getCache(CacheConfig.VEHICLES_CACHE)).thenReturn(vehicleCache);
+        lenient().when(imageUrlService.withUrl(any())).thenAnswer(invocation -> withCdnUrl(invocation.getArgument(0)));
+        lenient().when(imageUrlService.withUrls(anyList())).thenAnswer(invocation ->
+                invocation.<List<ImageResponse>>getArgument(0).stream().map(ImageServiceTest::withCdnUrl).toList());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
         
         testVehicleId = UUID.randomUUID();
         testImageId = UUID.randomUUID();
@@ -59,14 +113,13 @@ class ImageServiceTest {
         testImage = new Image();
         testImage.setId(testImageId);
         testImage.setS3Key("test-s3-key.jpg");
-        testImage.setUrl("https://bucket.s3.amazonaws.com/test-s3-key.jpg");
         testImage.setVehicle(testVehicle);
     }
 
     @Test
     void getAll_ShouldReturnImageResponseList() {
-        List<Image> images = List.of(testImage);
-        when(imageRepository.findAll()).thenReturn(images);
+        List<ImageResponse> images = List.of(new ImageResponse(testImage));
+        when(imageRepository.findAllResponses()).thenReturn(images);
 
         List<ImageResponse> result = imageService.getAll();
 
@@ -75,13 +128,14 @@ class ImageServiceTest {
         assertEquals(testVehicleId, result.get(0).getVehicleId());
         assertEquals("test-s3-key.jpg", result.get(0).getS3Key());
         
-        verify(imageRepository).findAll();
+        verify(imageRepository).findAllResponses();
+        verify(imageRepository, never()).findAll();
     }
 
     @Test
     void getById_WithValidId_ShouldReturnImageResponse() {
         String imageIdStr = testImageId.toString();
-        when(imageRepository.findById(testImageId)).thenReturn(Optional.of(testImage));
+        when(imageRepository.findResponseById(testImageId)).thenReturn(Optional.of(new ImageResponse(testImage)));
 
         ImageResponse result = imageService.getById(imageIdStr);
 
@@ -94,7 +148,7 @@ class ImageServiceTest {
     @Test
     void getById_WithInvalidId_ShouldThrowException() {
         String invalidId = UUID.randomUUID().toString();
-        when(imageRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(imageRepository.findResponseById(any(UUID.class))).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(
             EntityNotFoundException.class,
@@ -105,7 +159,7 @@ class ImageServiceTest {
     }
 
     @Test
-    void create_WithValidFile_ShouldCreateAndReturnImageResponse() throws IOException {
+    void create_WithValidFile_ShouldCreateAndReturnImageResponse() throws Exception {
         String vehicleIdStr = testVehicleId.toString();
         MockMultipartFile mockFile = new MockMultipartFile(
             "image", 
@@ -114,19 +168,83 @@ class ImageServiceTest {
             "test image content".getBytes()
         );
         
-        when(vehicleRepository.findById(testVehicleId)).thenReturn(Optional.of(testVehicle));
-        when(imageRepository.findAllByVehicleId(testVehicleId)).thenReturn(List.of()); // No existing images
-        when(s3Service.getImageUrl(anyString())).thenReturn("https://bucket.s3.amazonaws.com/generated-key.jpg");
-        when(imageRepository.save(any(Image.class))).thenReturn(testImage);
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L); // No existing images
+        when(imageRepository.saveAll(anyList())).thenReturn(List.of(testImage));
 
         ImageResponse result = imageService.create(vehicleIdStr, mockFile);
 
         assertNotNull(result);
-        verify(vehicleRepository).findById(testVehicleId);
-        verify(imageRepository).findAllByVehicleId(testVehicleId);
-        verify(s3Service).uploadImage(any(), anyString(), any());
-        verify(s3Service).getImageUrl(anyString());
-        verify(imageRepository).save(any(Image.class));
+        verify(vehicleRepository).existsById(testVehicleId);
+        verify(imageRepository, times(2)).countByVehicleId(testVehicleId);
+        verify(imageRepository, never()).findAll();
+        InOrder uploadThenCommit = inOrder(s3Service, transactionTemplate, imageRepository);
+        uploadThenCommit.verify(s3Service).uploadImage(any(), eq(contentKey("test image content")), any(), any());
+        uploadThenCommit.verify(transactionTemplate).execute(any());
+        uploadThenCommit.verify(imageRepository).saveAll(anyList());
+        assertEquals("https://cdn.example.com/test-s3-key.jpg", result.getUrl());
+        verify(s3Service, never()).deleteImage(anyString());
+        verify(vehicleCache).evict(testVehicleId);
+        verify(imageVariantService).generateAsync(contentKey("test image content"));
+    }
+
+    @Test
+    void create_WithAlreadyStoredContent_ShouldReferenceItWithoutUploading() throws Exception {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile mockFile = new MockMultipartFile("image", "stock.JPG", "image/jpeg", "stock photo".getBytes());
+        Image imageWithSameContent = new Image();
+        imageWithSameContent.setS3Key(contentKey("stock photo"));
+        imageWithSameContent.setVariants("320x213");
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.findFirstByS3Key(contentKey("stock photo"))).thenReturn(Optional.of(imageWithSameContent));
+        when(imageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImageResponse result = imageService.create(vehicleIdStr, mockFile);
+
+        assertEquals(contentKey("stock photo"), result.getS3Key());
+        assertEquals(1, result.getVariants().size());
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+        verify(imageVariantService, never()).generateAsync(any());
+    }
+
+    @Test
+    void create_WhenCommitFailsButContentIsReferencedByAnotherImage_ShouldKeepObject() {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile mockFile = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test".getBytes());
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("boom"));
+        when(imageRepository.countByS3Key(anyString())).thenReturn(1L);
+
+        assertThrows(DataIntegrityViolationException.class, () -> imageService.create(vehicleIdStr, mockFile));
+
+        verify(s3Service).uploadImage(any(), anyString(), any(), any());
+        verify(s3Service, never()).deleteImage(anyString());
+    }
+
+    @Test
+    void create_WhenCommitFails_ShouldDeleteUploadedObject() {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile mockFile = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test".getBytes());
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> imageService.create(vehicleIdStr, mockFile));
+
+        ArgumentCaptor<String> uploadedKey = ArgumentCaptor.forClass(String.class);
+        verify(s3Service).uploadImage(any(), uploadedKey.capture(), any(), any());
+        verify(s3Service).deleteImage(uploadedKey.getValue());
+        verify(vehicleCache, never()).evict(any());
+        verify(imageVariantService, never()).generateAsync(any());
     }
 
     @Test
@@ -134,7 +252,7 @@ class ImageServiceTest {
         String invalidVehicleId = UUID.randomUUID().toString();
         MockMultipartFile mockFile = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test".getBytes());
         
-        when(vehicleRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(vehicleRepository.existsById(any(UUID.class))).thenReturn(false);
 
         EntityNotFoundException exception = assertThrows(
             EntityNotFoundException.class,
@@ -142,7 +260,7 @@ class ImageServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Vehicle not found"));
-        verify(s3Service, never()).uploadImage(any(), anyString(), any());
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
     }
 
     @Test
@@ -150,10 +268,8 @@ class ImageServiceTest {
         String vehicleIdStr = testVehicleId.toString();
         MockMultipartFile mockFile = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test".getBytes());
 
-        List<Image> existingImages = List.of(new Image(), new Image());
-        
-        when(vehicleRepository.findById(testVehicleId)).thenReturn(Optional.of(testVehicle));
-        when(imageRepository.findAllByVehicleId(testVehicleId)).thenReturn(existingImages);
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(2L);
 
         RuntimeException exception = assertThrows(
             RuntimeException.class,
@@ -161,39 +277,270 @@ class ImageServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("already has 2 images"));
-        verify(s3Service, never()).uploadImage(any(), anyString(), any());
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+    }
+
+    @Test
+    void create_WhenConcurrentUploadTakesLastSlot_ShouldRejectUnderLockAndDeleteUploadedObject() {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile mockFile = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test".getBytes());
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(1L, 2L);
+
+        RuntimeException exception = assertThrows(
+            RuntimeException.class,
+            () -> imageService.create(vehicleIdStr, mockFile)
+        );
+
+        assertTrue(exception.getMessage().contains("already has 2 images"));
+        InOrder lockThenCount = inOrder(vehicleRepository, imageRepository);
+        lockThenCount.verify(vehicleRepository).findByIdForUpdate(testVehicleId);
+        lockThenCount.verify(imageRepository).countByVehicleId(testVehicleId);
+        ArgumentCaptor<String> uploadedKey = ArgumentCaptor.forClass(String.class);
+        verify(s3Service).uploadImage(any(), uploadedKey.capture(), any(), any());
+        verify(s3Service).deleteImage(uploadedKey.getValue());
+        verify(imageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createBatch_WithOneInvalidFile_ShouldCreateTheOthersAndReportTheFailure() {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile validFile = new MockMultipartFile("images", "front.jpg", "image/jpeg", "front".getBytes());
+        MockMultipartFile invalidFile = new MockMultipartFile("images", "notes.txt", "text/plain", "notes".getBytes());
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImageUploadResult> results = imageService.createBatch(vehicleIdStr, List.of(validFile, invalidFile));
+
+        assertEquals(2, results.size());
+        assertEquals(ImageUploadResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals("front.jpg", results.get(0).getFilename());
+        assertNotNull(results.get(0).getImage());
+        assertEquals(ImageUploadResult.Status.FAILED, results.get(1).getStatus());
+        assertEquals("File must be an image", results.get(1).getError());
+
+        verify(s3Service, times(1)).uploadImage(any(), anyString(), any(), any());
+        verify(imageRepository, times(1)).saveAll(anyList());
+        verify(imageRepository, never()).save(any(Image.class));
+        verify(vehicleCache).evict(testVehicleId);
+    }
+
+    @Test
+    void createBatch_WithSameFileTwice_ShouldCreateBothOnOneObject() throws Exception {
+        String vehicleIdStr = testVehicleId.toString();
+        MockMultipartFile first = new MockMultipartFile("images", "front.jpg", "image/jpeg", "front".getBytes());
+        MockMultipartFile second = new MockMultipartFile("images", "copy.jpg", "image/jpeg", "front".getBytes());
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImageUploadResult> results = imageService.createBatch(vehicleIdStr, List.of(first, second));
+
+        assertEquals(ImageUploadResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(ImageUploadResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(contentKey("front"), results.get(0).getImage().getS3Key());
+        assertEquals(contentKey("front"), results.get(1).getImage().getS3Key());
+        verify(imageVariantService, times(1)).generateAsync(contentKey("front"));
+    }
+
+    @Test
+    void createBatch_WhenBatchWouldExceedLimit_ShouldUploadNothing() {
+        String vehicleIdStr = testVehicleId.toString();
+        List<MultipartFile> files = List.of(
+            new MockMultipartFile("images", "a.jpg", "image/jpeg", "a".getBytes()),
+            new MockMultipartFile("images", "b.jpg", "image/jpeg", "b".getBytes())
+        );
+
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(1L);
+
+        RuntimeException exception = assertThrows(
+            RuntimeException.class,
+            () -> imageService.createBatch(vehicleIdStr, files)
+        );
+
+        assertTrue(exception.getMessage().contains("already has 1 images"));
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+        verify(imageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createUploadUrl_ShouldPresignKeyUnderVehiclePrefixWithoutHostHeader() throws Exception {
+        PresignedPutObjectRequest presignedRequest = mock(PresignedPutObjectRequest.class);
+        when(presignedRequest.signedHeaders()).thenReturn(Map.of(
+                "host", List.of("bucket.s3.amazonaws.com"),
+                "content-type", List.of("image/jpeg"),
+                "content-length", List.of("2048")));
+        when(presignedRequest.httpRequest()).thenReturn(SdkHttpRequest.builder()
+                .method(SdkHttpMethod.PUT).uri(URI.create("https://bucket.s3.amazonaws.com/key")).build());
+        when(presignedRequest.url()).thenReturn(new URL("https://bucket.s3.amazonaws.com/key?X-Amz-Signature=abc"));
+        when(presignedRequest.expiration()).thenReturn(Instant.now().plusSeconds(900));
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(s3Service.presignUpload(anyString(), eq("image/jpeg"), eq(2048L))).thenReturn(presignedRequest);
+
+        ImageUploadUrl uploadUrl = imageService.createUploadUrl(testVehicleId.toString(),
+                new ImageUploadUrlRequest("golf.jpg", "image/jpeg", 2048L));
+
+        assertTrue(uploadUrl.getS3Key().startsWith(testVehicleId + "/"));
+        assertTrue(uploadUrl.getS3Key().endsWith(".jpg"));
+        assertEquals("PUT", uploadUrl.getMethod());
+        assertEquals(Map.of("content-type", "image/jpeg", "content-length", "2048"), uploadUrl.getHeaders());
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+    }
+
+    @Test
+    void createUploadUrl_WhenFileTooLarge_ShouldNotPresign() {
+        ImageUploadUrlRequest request = new ImageUploadUrlRequest("golf.jpg", "image/jpeg", DataSize.ofMegabytes(11).toBytes());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> imageService.createUploadUrl(testVehicleId.toString(), request));
+
+        verify(s3Service, never()).presignUpload(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void confirmUpload_WithUploadedObject_ShouldRecordImage() {
+        String s3Key = testVehicleId + "/uploaded.jpg";
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(imageRepository.findResponseByS3Key(s3Key)).thenReturn(Optional.empty());
+        when(s3Service.findObject(s3Key)).thenReturn(Optional.of(HeadObjectResponse.builder()
+                .contentType("image/jpeg").contentLength(2048L).build()));
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(0L);
+        when(imageRepository.saveAll(anyList())).thenReturn(List.of(testImage));
+
+        ImageResponse result = imageService.confirmUpload(testVehicleId.toString(), s3Key);
+
+        assertEquals(testImageId, result.getId());
+        ArgumentCaptor<List<Image>> savedImages = ArgumentCaptor.forClass(List.class);
+        verify(imageRepository).saveAll(savedImages.capture());
+        assertEquals(s3Key, savedImages.getValue().get(0).getS3Key());
+        verify(s3CleanupService).cancelDeletion(List.of(s3Key));
+        verify(vehicleCache).evict(testVehicleId);
+        verify(imageVariantService).generateAsync(s3Key);
     }
 
     @Test
-    void update_WithValidFile_ShouldUpdateImageResponse() throws IOException {
+    void confirmUpload_WhenAlreadyConfirmed_ShouldReturnExistingImage() {
+        String s3Key = testVehicleId + "/uploaded.jpg";
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(s3Service.findObject(s3Key)).thenReturn(Optional.of(HeadObjectResponse.builder()
+                .contentType("image/jpeg").contentLength(2048L).build()));
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.findResponseByS3Key(s3Key)).thenReturn(Optional.of(new ImageResponse(testImage)));
+
+        ImageResponse result = imageService.confirmUpload(testVehicleId.toString(), s3Key);
+
+        assertEquals(testImageId, result.getId());
+        // A concurrent confirm that committed first is only visible once the vehicle lock is held
+        InOrder inOrder = inOrder(vehicleRepository, imageRepository);
+        inOrder.verify(vehicleRepository).findByIdForUpdate(testVehicleId);
+        inOrder.verify(imageRepository).findResponseByS3Key(s3Key);
+        verify(imageRepository, never()).saveAll(anyList());
+        verify(imageVariantService, never()).generateAsync(anyString());
+    }
+
+    @Test
+    void confirmUpload_WhenRecordingFailsTransiently_ShouldKeepTheObjectForARetry() {
+        String s3Key = testVehicleId + "/uploaded.jpg";
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(s3Service.findObject(s3Key)).thenReturn(Optional.of(HeadObjectResponse.builder()
+                .contentType("image/jpeg").contentLength(2048L).build()));
+        when(vehicleRepository.findByIdForUpdate(testVehicleId))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        assertThrows(CannotAcquireLockException.class, () -> imageService.confirmUpload(testVehicleId.toString(), s3Key));
+
+        verify(s3Service, never()).deleteImage(anyString());
+        verify(imageVariantService, never()).generateAsync(anyString());
+    }
+
+    @Test
+    void confirmUpload_WhenImageLimitIsReached_ShouldRemoveTheObject() {
+        String s3Key = testVehicleId + "/uploaded.jpg";
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(s3Service.findObject(s3Key)).thenReturn(Optional.of(HeadObjectResponse.builder()
+                .contentType("image/jpeg").contentLength(2048L).build()));
+        when(vehicleRepository.findByIdForUpdate(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(imageRepository.findResponseByS3Key(s3Key)).thenReturn(Optional.empty());
+        when(imageRepository.countByVehicleId(testVehicleId)).thenReturn(2L);
+
+        assertThrows(RuntimeException.class, () -> imageService.confirmUpload(testVehicleId.toString(), s3Key));
+
+        verify(imageRepository, never()).saveAll(anyList());
+        verify(s3Service).deleteImage(s3Key);
+    }
+
+    @Test
+    void confirmUpload_WithKeyOfAnotherVehicle_ShouldThrowException() {
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> imageService.confirmUpload(testVehicleId.toString(), UUID.randomUUID() + "/uploaded.jpg"));
+
+        verify(s3Service, never()).findObject(anyString());
+    }
+
+    @Test
+    void confirmUpload_WhenObjectWasNotUploaded_ShouldThrowException() {
+        String s3Key = testVehicleId + "/missing.jpg";
+        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(s3Service.findObject(s3Key)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> imageService.confirmUpload(testVehicleId.toString(), s3Key));
+
+        verify(imageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void update_WithValidFile_ShouldUpdateImageResponse() throws Exception {
         String imageIdStr = testImageId.toString();
         MockMultipartFile mockFile = new MockMultipartFile("image", "updated.jpg", "image/jpeg", "updated".getBytes());
         
         when(imageRepository.findById(testImageId)).thenReturn(Optional.of(testImage));
         when(imageRepository.save(testImage)).thenReturn(testImage);
 
+        testImage.setVariants("320x213");
+
         ImageResponse result = imageService.update(imageIdStr, mockFile);
 
         assertNotNull(result);
-        verify(s3Service).uploadImage(any(), eq("test-s3-key.jpg"), any());
+        assertEquals(contentKey("updated"), testImage.getS3Key());
+        assertNull(testImage.getVariants());
+        verify(s3Service).uploadImage(any(), eq(contentKey("updated")), any(), any());
+        verify(s3Service, never()).uploadImage(any(), eq("test-s3-key.jpg"), any(), any());
         verify(imageRepository).save(testImage);
+        verify(vehicleCache).evict(testVehicleId);
+        verify(imageVariantService).generateAsync(contentKey("updated"));
+        verify(s3CleanupService).scheduleDeletion(List.of("test-s3-key.jpg"));
     }
 
     @Test
     void deleteById_WithValidId_ShouldCallRepository() {
         String imageIdStr = testImageId.toString();
-        when(imageRepository.existsById(testImageId)).thenReturn(true);
+        when(imageRepository.findById(testImageId)).thenReturn(Optional.of(testImage));
 
         imageService.deleteById(imageIdStr);
 
-        verify(imageRepository).existsById(testImageId);
-        verify(imageRepository).deleteById(testImageId);
+        verify(imageRepository).delete(testImage);
+        verify(s3CleanupService).scheduleDeletion(List.of("test-s3-key.jpg"));
+        verify(s3Service, never()).deleteImage(anyString());
+        verify(vehicleCache).evict(testVehicleId);
     }
 
     @Test
     void deleteById_WithInvalidId_ShouldThrowException() {
         String invalidId = UUID.randomUUID().toString();
-        when(imageRepository.existsById(any(UUID.class))).thenReturn(false);
+        when(imageRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(
             EntityNotFoundException.class,
@@ -201,6 +548,16 @@ class ImageServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Image not found"));
-        verify(imageRepository, never()).deleteById(any(UUID.class));
+        verify(imageRepository, never()).delete(any(Image.class));
+        verifyNoInteractions(s3CleanupService);
+        verify(vehicleCache, never()).evict(any());
+    }
+
+    private static ImageResponse withCdnUrl(ImageResponse image) {
+        return image.withUrl("https://cdn.example.com/" + image.getS3Key());
+    }
+
+    private static String contentKey(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes())) + ".jpg";
     }
 }
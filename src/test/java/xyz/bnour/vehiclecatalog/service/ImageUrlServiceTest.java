@@ -0,0 +1,114 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.ResourceVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageUrlServiceTest {
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Test
+    void withUrls_WithoutCdn_ShouldPresignEachKeyAndVariantOnlyOnce() throws Exception {
+        PresignedGetObjectRequest presignedRequest = mock(PresignedGetObjectRequest.class);
+        when(presignedRequest.url()).thenReturn(new URL("https://development-images.s3.amazonaws.com/golf.jpg?X-Amz-Signature=abc"));
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presignedRequest);
+        ImageUrlService imageUrlService = imageUrlService("");
+        ImageResponse image = new ImageResponse(UUID.randomUUID(), "golf.jpg", UUID.randomUUID(), "320x213", null, null);
+
+        List<ImageResponse> first = imageUrlService.withUrls(List.of(image, image));
+        List<ImageResponse> second = imageUrlService.withUrls(List.of(image));
+
+        assertEquals("https://development-images.s3.amazonaws.com/golf.jpg?X-Amz-Signature=abc", first.get(0).getUrl());
+        assertEquals(first.get(0).getUrl(), second.get(0).getUrl());
+        assertNotNull(first.get(0).getVariants().get(0).getUrl());
+        assertNull(image.getUrl());
+        verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    void getUrl_WithCdn_ShouldPointAtCdnWithoutSigning() {
+        ImageUrlService imageUrlService = imageUrlService("cdn.example.com");
+
+        assertEquals("https://cdn.example.com/golf.jpg", imageUrlService.getUrl("golf.jpg"));
+        verifyNoInteractions(s3Presigner);
+    }
+
+    @Test
+    void withUrlWindow_WithoutCdn_ShouldChangeValidatorsOncePresignedUrlsMoveOn() throws Exception {
+        // Windows of 100ms
+        ImageUrlService imageUrlService = imageUrlService("", Duration.ofMillis(800));
+        ResourceVersion stored = new ResourceVersion(UUID.randomUUID(), LocalDateTime.now().minusDays(1));
+
+        ResourceVersion first = imageUrlService.withUrlWindow(stored);
+        Thread.sleep(250);
+        ResourceVersion second = imageUrlService.withUrlWindow(stored);
+
+        assertNotEquals(stored.getEtag(), first.getEtag());
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertTrue(first.getLastModified() > stored.getLastModified());
+        assertTrue(second.getLastModified() >= first.getLastModified() + 100);
+        assertTrue(second.getLastModified() <= System.currentTimeMillis());
+    }
+
+    @Test
+    void withUrlWindow_WithCdn_ShouldKeepStoredValidators() {
+        ImageUrlService imageUrlService = imageUrlService("cdn.example.com");
+        ResourceVersion stored = new ResourceVersion(UUID.randomUUID(), LocalDateTime.now().minusDays(1));
+
+        assertSame(stored, imageUrlService.withUrlWindow(stored));
+    }
+
+    @Test
+    void validateVehicleCacheTtl_WithoutCdn_ShouldRejectTtlReachingThreeEighthsOfDownloadExpiry() {
+        ImageUrlService imageUrlService = imageUrlService("", Duration.ofHours(1), Duration.ofMinutes(22).plusSeconds(30));
+
+        assertThrows(IllegalStateException.class, imageUrlService::validateVehicleCacheTtl);
+    }
+
+    @Test
+    void validateVehicleCacheTtl_WithoutCdn_ShouldAcceptShorterTtl() {
+        ImageUrlService imageUrlService = imageUrlService("", Duration.ofHours(1), Duration.ofMinutes(10));
+
+        assertDoesNotThrow(imageUrlService::validateVehicleCacheTtl);
+    }
+
+    @Test
+    void validateVehicleCacheTtl_WithCdn_ShouldAcceptAnyTtl() {
+        ImageUrlService imageUrlService = imageUrlService("cdn.example.com", Duration.ofHours(1), Duration.ofHours(2));
+
+        assertDoesNotThrow(imageUrlService::validateVehicleCacheTtl);
+    }
+
+    private ImageUrlService imageUrlService(String cdnDomain) {
+        return imageUrlService(cdnDomain, Duration.ofHours(1));
+    }
+
+    private ImageUrlService imageUrlService(String cdnDomain, Duration downloadExpiry) {
+        return imageUrlService(cdnDomain, downloadExpiry, downloadExpiry.dividedBy(4));
+    }
+
+    private ImageUrlService imageUrlService(String cdnDomain, Duration downloadExpiry, Duration vehicleCacheTtl) {
+        return new ImageUrlService(s3Presigner, new SimpleMeterRegistry(), "development-images", cdnDomain,
+                downloadExpiry, vehicleCacheTtl, 100L);
+    }
+}
@@ -0,0 +1,162 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache vehicleCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Executor imageVariantExecutor;
+
+    private ImageVariantService imageVariantService;
+    private final UUID vehicleId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantService(imageRepository, s3Service, cacheManager, transactionTemplate,
+                imageVariantExecutor);
+        ReflectionTestUtils.setField(imageVariantService, "enabled", true);
+        ReflectionTestUtils.setField(imageVariantService, "widths", List.of(320, 640, 1280));
+        ReflectionTestUtils.setField(imageVariantService, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(imageVariantService, "maxPixels", 1_000_000L);
+        ReflectionTestUtils.setField(imageVariantService, "backfillInterval", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(imageVariantService, "backfillBatchSize", 100);
+    }
+
+    @Test
+    void generate_WithJpeg_ShouldUploadSmallerWidthsAndRecordThem() throws IOException {
+        stubTransaction();
+        when(s3Service.downloadImage("car.jpg")).thenReturn(jpeg(1000, 500));
+
+        imageVariantService.generate("car.jpg");
+
+        ArgumentCaptor<InputStream> content = ArgumentCaptor.forClass(InputStream.class);
+        verify(s3Service).uploadImage(content.capture(), eq("variants/car.jpg-640w.jpg"), any(), eq("image/jpeg"));
+        verify(s3Service).uploadImage(any(), eq("variants/car.jpg-320w.jpg"), any(), eq("image/jpeg"));
+        verify(s3Service, never()).uploadImage(any(), eq("variants/car.jpg-1280w.jpg"), any(), any());
+        BufferedImage variant = ImageIO.read(content.getValue());
+        assertEquals(640, variant.getWidth());
+        assertEquals(320, variant.getHeight());
+        verify(imageRepository).updateVariants(eq("car.jpg"), eq("320x160,640x320"), any());
+        verify(vehicleCache).evict(vehicleId);
+    }
+
+    @Test
+    void generate_WithUndecodableObject_ShouldRecordNoVariants() {
+        stubTransaction();
+        when(s3Service.downloadImage("notes.jpg")).thenReturn(new ByteArrayInputStream("not an image".getBytes()));
+
+        imageVariantService.generate("notes.jpg");
+
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+        verify(imageRepository).updateVariants(eq("notes.jpg"), eq(""), any());
+    }
+
+    @Test
+    void generate_WithTooManyPixels_ShouldRecordNoVariants() throws IOException {
+        stubTransaction();
+        when(s3Service.downloadImage("huge.jpg")).thenReturn(jpeg(2000, 1000));
+
+        imageVariantService.generate("huge.jpg");
+
+        verify(s3Service, never()).uploadImage(any(), anyString(), any(), any());
+        verify(imageRepository).updateVariants(eq("huge.jpg"), eq(""), any());
+    }
+
+    @Test
+    void generate_WhenOriginalIsGone_ShouldRecordNoVariants() {
+        stubTransaction();
+        when(s3Service.downloadImage("gone.jpg"))
+                .thenThrow(new RuntimeException("Failed to download", NoSuchKeyException.builder().build()));
+
+        imageVariantService.generate("gone.jpg");
+
+        verify(imageRepository).updateVariants(eq("gone.jpg"), eq(""), any());
+    }
+
+    @Test
+    void generate_WhenDownloadFails_ShouldLeaveImageForBackfill() {
+        when(s3Service.downloadImage("car.jpg")).thenThrow(new RuntimeException("Failed to download"));
+
+        imageVariantService.generate("car.jpg");
+
+        verify(imageRepository, never()).updateVariants(any(), any(), any());
+    }
+
+    @Test
+    void generateAsync_WhenQueueIsFull_ShouldNotThrow() {
+        doThrow(new TaskRejectedException("full")).when(imageVariantExecutor).execute(any());
+
+        assertDoesNotThrow(() -> imageVariantService.generateAsync("car.jpg"));
+    }
+
+    @Test
+    void generateAsync_WhenDisabled_ShouldNotQueue() {
+        ReflectionTestUtils.setField(imageVariantService, "enabled", false);
+
+        imageVariantService.generateAsync("car.jpg");
+
+        verifyNoInteractions(imageVariantExecutor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTransaction() {
+        when(cacheManager.getCache(CacheConfig.VEHICLES_CACHE)).thenReturn(vehicleCache);
+        when(imageRepository.findVehicleIdsByS3Key(anyString())).thenReturn(List.of(vehicleId));
+        doAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static InputStream jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", content);
+        return new ByteArrayInputStream(content.toByteArray());
+    }
+}
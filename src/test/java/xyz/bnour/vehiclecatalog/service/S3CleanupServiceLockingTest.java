@@ -0,0 +1,128 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.entity.S3Deletion;
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import xyz.bnour.vehiclecatalog.repository.S3DeletionRepository;
+import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a sweep and an upload of the same content against the database, each in its own transaction, to check
+ * that the upload can't commit a new reference while the sweeper is deleting the object.
+ */
+@DataJpaTest
+@Import({S3CleanupService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class S3CleanupServiceLockingTest {
+    private static final String SHARED_KEY = "shared.jpg";
+
+    @Autowired
+    private S3CleanupService s3CleanupService;
+
+    @Autowired
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private S3Service s3Service;
+
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        vehicle = new Vehicle();
+        vehicle.setName("Golf");
+        vehicle.setModel("GTI");
+        vehicle.setModelYear(2024);
+        vehicle.setPrice(new BigDecimal("35000.00"));
+        vehicle = vehicleRepository.save(vehicle);
+        s3DeletionRepository.save(new S3Deletion(SHARED_KEY, LocalDateTime.now().minusMinutes(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAll();
+        vehicleRepository.deleteAll();
+        s3DeletionRepository.deleteAll();
+    }
+
+    @Test
+    void cancelDeletion_WhileSweepIsDeletingTheKey_ShouldWaitForTheSweep() throws Exception {
+        CountDownLatch deleting = new CountDownLatch(1);
+        CountDownLatch finishDeleting = new CountDownLatch(1);
+        when(s3Service.deleteImages(anyList())).thenAnswer(invocation -> {
+            deleting.countDown();
+            assertTrue(finishDeleting.await(5, TimeUnit.SECONDS));
+            return Map.of();
+        });
+
+        CompletableFuture<Integer> sweep = CompletableFuture.supplyAsync(s3CleanupService::sweepBatch);
+        assertTrue(deleting.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    Image image = new Image();
+                    image.setS3Key(SHARED_KEY);
+                    image.setVehicle(vehicle);
+                    imageRepository.save(image);
+                    s3CleanupService.cancelDeletion(List.of(SHARED_KEY));
+                }));
+
+        // Blocked on the outbox row the sweeper holds, so the image can't be committed before the object is gone
+        assertThrows(TimeoutException.class, () -> upload.get(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, imageRepository.countByS3Key(SHARED_KEY));
+
+        finishDeleting.countDown();
+        assertEquals(1, sweep.get(5, TimeUnit.SECONDS));
+        upload.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, imageRepository.countByS3Key(SHARED_KEY));
+        assertEquals(0, s3DeletionRepository.count());
+    }
+
+    @Test
+    void sweepBatch_AfterUploadCancelledTheDeletion_ShouldLeaveTheObject() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Image image = new Image();
+            image.setS3Key(SHARED_KEY);
+            image.setVehicle(vehicle);
+            imageRepository.save(image);
+            s3CleanupService.cancelDeletion(List.of(SHARED_KEY));
+        });
+
+        assertEquals(0, s3CleanupService.sweepBatch());
+        assertEquals(0, s3DeletionRepository.count());
+    }
+}
@@ -0,0 +1,167 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.S3Deletion;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import xyz.bnour.vehiclecatalog.repository.S3DeletionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3CleanupServiceTest {
+
+    @Mock
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private S3CleanupService s3CleanupService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        s3CleanupService = new S3CleanupService(s3DeletionRepository, imageRepository, s3Service, transactionTemplate,
+                meterRegistry);
+        ReflectionTestUtils.setField(s3CleanupService, "enabled", true);
+        ReflectionTestUtils.setField(s3CleanupService, "gracePeriod", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(s3CleanupService, "sweepInterval", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(s3CleanupService, "batchSize", 1000);
+        ReflectionTestUtils.setField(s3CleanupService, "maxRetryDelay", Duration.ofHours(1));
+        ReflectionTestUtils.setField(s3CleanupService, "reconciliationMinAge", Duration.ofDays(1));
+        ReflectionTestUtils.setField(s3CleanupService, "variantWidths", List.of(320));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scheduleDeletion_ShouldWriteOneRowPerKeyAfterTheGracePeriod() {
+        s3CleanupService.scheduleDeletion(List.of("a.jpg", "a.jpg", "b.jpg"));
+
+        ArgumentCaptor<List<S3Deletion>> deletions = ArgumentCaptor.forClass(List.class);
+        verify(s3DeletionRepository).saveAll(deletions.capture());
+        assertEquals(List.of("a.jpg", "b.jpg"), deletions.getValue().stream().map(S3Deletion::getS3Key).toList());
+        assertTrue(deletions.getValue().get(0).getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+    }
+
+    @Test
+    void cancelDeletion_ShouldWithdrawKeysWithTheirVariants() {
+        s3CleanupService.cancelDeletion(List.of("a.jpg", "a.jpg"));
+
+        verify(s3DeletionRepository).deleteAllByS3KeyIn(List.of("a.jpg", "variants/a.jpg-320w.jpg"));
+    }
+
+    @Test
+    void sweepBatch_ShouldDeleteUnreferencedObjectsWithVariantsAndSkipReferencedOnes() {
+        stubTransactions();
+        S3Deletion unreferenced = deletion("a.jpg");
+        S3Deletion referenced = deletion("b.jpg");
+        when(s3DeletionRepository.findDueForUpdate(any(), any())).thenReturn(List.of(unreferenced, referenced));
+        when(imageRepository.findReferencedS3Keys(List.of("a.jpg", "b.jpg"))).thenReturn(List.of("b.jpg"));
+        when(s3Service.deleteImages(List.of("a.jpg", "variants/a.jpg-320w.jpg"))).thenReturn(Map.of());
+
+        assertEquals(2, s3CleanupService.sweepBatch());
+
+        verify(s3DeletionRepository).deleteAllByIdInBatch(List.of(unreferenced.getId(), referenced.getId()));
+        verify(s3DeletionRepository).saveAll(List.of());
+        assertEquals(1, meterRegistry.get("s3.cleanup.objects").tag("result", "deleted").counter().count());
+        assertEquals(1, meterRegistry.get("s3.cleanup.objects").tag("result", "referenced").counter().count());
+    }
+
+    @Test
+    void sweepBatch_WhenDeleteFails_ShouldKeepRowAndBackOff() {
+        stubTransactions();
+        S3Deletion failing = deletion("a.jpg");
+        when(s3DeletionRepository.findDueForUpdate(any(), any())).thenReturn(List.of(failing));
+        when(s3Service.deleteImages(anyList())).thenReturn(Map.of("variants/a.jpg-320w.jpg", "AccessDenied: denied"));
+
+        s3CleanupService.sweepBatch();
+
+        verify(s3DeletionRepository).deleteAllByIdInBatch(List.of());
+        verify(s3DeletionRepository).saveAll(List.of(failing));
+        assertEquals(1, failing.getAttempts());
+        assertEquals("AccessDenied: denied", failing.getLastError());
+        assertTrue(failing.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        assertEquals(1, meterRegistry.get("s3.cleanup.objects").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void sweepBatch_WithNothingDue_ShouldNotCallS3() {
+        stubTransactions();
+
+        assertEquals(0, s3CleanupService.sweepBatch());
+
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_ShouldScheduleOldUnreferencedObjectsOnly() {
+        stubTransactions();
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(List.of(
+                    object("orphan.jpg", old),
+                    object("kept.jpg", old),
+                    object("variants/kept.jpg-320w.jpg", old),
+                    object("variants/gone.jpg-320w.jpg", old),
+                    object("pending.jpg", old),
+                    object("fresh.jpg", Instant.now())));
+            return null;
+        }).when(s3Service).forEachObjectPage(any());
+        when(imageRepository.findReferencedS3Keys(anyList())).thenReturn(List.of("kept.jpg"));
+        when(s3DeletionRepository.findPendingS3Keys(anyList())).thenReturn(List.of("pending.jpg"));
+
+        s3CleanupService.reconcile();
+
+        ArgumentCaptor<List<S3Deletion>> deletions = ArgumentCaptor.forClass(List.class);
+        verify(s3DeletionRepository).saveAll(deletions.capture());
+        assertEquals(List.of("orphan.jpg", "variants/gone.jpg-320w.jpg"),
+                deletions.getValue().stream().map(S3Deletion::getS3Key).toList());
+        assertEquals(2, meterRegistry.get("s3.cleanup.orphans").counter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTransactions() {
+        lenient().doAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static S3Deletion deletion(String s3Key) {
+        S3Deletion deletion = new S3Deletion(s3Key, LocalDateTime.now());
+        deletion.setId(UUID.randomUUID());
+        return deletion;
+    }
+
+    private static S3Object object(String key, Instant lastModified) {
+        return S3Object.builder().key(key).lastModified(lastModified).build();
+    }
+}
@@ -0,0 +1,244 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3ServiceTest {
+    private static final int PART_SIZE = 5;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        s3Service = new S3Service(s3Client, s3Presigner, executor, meterRegistry);
+        ReflectionTestUtils.setField(s3Service, "bucketName", "development-images");
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofBytes(10));
+        ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(s3Service, "maxConcurrentParts", 2);
+        ReflectionTestUtils.setField(s3Service, "maxPartAttempts", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void uploadImage_BelowThreshold_ShouldUseSinglePut() {
+        byte[] content = "small".getBytes();
+
+        s3Service.uploadImage(new ByteArrayInputStream(content), "small.jpg", (long) content.length, "image/jpeg");
+
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        assertEquals(1, meterRegistry.get("s3.upload")
+                .tags("outcome", "success", "transfer", "single", "size", "lt_256kb").timer().count());
+    }
+
+    @Test
+    void uploadImage_AboveThreshold_ShouldUploadPartsAndComplete() {
+        byte[] content = "a-large-vehicle-photo".getBytes(); // 21 bytes -> 5 parts
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> UploadPartResponse.builder()
+                        .eTag("etag-" + invocation.<UploadPartRequest>getArgument(0).partNumber())
+                        .build());
+
+        s3Service.uploadImage(new ByteArrayInputStream(content), "large.jpg", (long) content.length, "image/jpeg");
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        List<CompletedPart> parts = complete.getValue().multipartUpload().parts();
+        assertEquals(5, parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(i + 1, parts.get(i).partNumber());
+            assertEquals("etag-" + (i + 1), parts.get(i).eTag());
+        }
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void uploadImage_WhenPartFailsOnce_ShouldRetryThatPart() {
+        byte[] content = "0123456789".getBytes(); // 2 parts
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-2").build());
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 1),
+                any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag-1").build());
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 2),
+                any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("connection reset").build())
+                .thenReturn(UploadPartResponse.builder().eTag("etag-2").build());
+
+        s3Service.uploadImage(new ByteArrayInputStream(content), "retried.jpg", (long) content.length, "image/jpeg");
+
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void uploadImage_WhenPartKeepsFailing_ShouldAbortUpload() {
+        byte[] content = "0123456789".getBytes();
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-3").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("service unavailable").build());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> s3Service.uploadImage(new ByteArrayInputStream(content), "failed.jpg", (long) content.length, "image/jpeg"));
+
+        assertTrue(exception.getMessage().contains("Failed to upload image to S3"));
+        verify(s3Client).abortMultipartUpload(argThat((AbortMultipartUploadRequest request) ->
+                "upload-3".equals(request.uploadId()) && "failed.jpg".equals(request.key())));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(1, meterRegistry.get("s3.upload")
+                .tags("outcome", "failure", "transfer", "multipart").timer().count());
+    }
+
+    @Test
+    void uploadImage_WhenPartFailsWhileAnotherIsInFlight_ShouldAbortOnlyAfterItFinished() throws Exception {
+        ReflectionTestUtils.setField(s3Service, "maxPartAttempts", 1);
+        byte[] content = "0123456789".getBytes(); // 2 parts
+        CountDownLatch secondPartStarted = new CountDownLatch(1);
+        CountDownLatch finishSecondPart = new CountDownLatch(1);
+        AtomicBoolean secondPartFinished = new AtomicBoolean();
+        AtomicBoolean abortedAfterSecondPart = new AtomicBoolean();
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-5").build());
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 1),
+                any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    assertTrue(secondPartStarted.await(5, TimeUnit.SECONDS));
+                    throw S3Exception.builder().message("service unavailable").build();
+                });
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 2),
+                any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    secondPartStarted.countDown();
+                    assertTrue(finishSecondPart.await(5, TimeUnit.SECONDS));
+                    secondPartFinished.set(true);
+                    return UploadPartResponse.builder().eTag("etag-2").build();
+                });
+        when(s3Client.abortMultipartUpload(any(AbortMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            abortedAfterSecondPart.set(secondPartFinished.get());
+            return null;
+        });
+
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> s3Service.uploadImage(
+                new ByteArrayInputStream(content), "aborted.jpg", (long) content.length, "image/jpeg"));
+        assertTrue(secondPartStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        finishSecondPart.countDown();
+        assertThrows(ExecutionException.class, () -> upload.get(5, TimeUnit.SECONDS));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertTrue(abortedAfterSecondPart.get());
+    }
+
+    @Test
+    void uploadImage_WhenStreamIsShorterThanDeclared_ShouldAbortUpload() {
+        byte[] content = "0123456789".getBytes();
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-4").build());
+        lenient().when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        assertThrows(RuntimeException.class,
+                () -> s3Service.uploadImage(new ByteArrayInputStream(content), "short.jpg", 20L, "image/jpeg"));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void validateMultipartSettings_WithPartsBelowTheS3Minimum_ShouldFailAtStartup() {
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofMegabytes(8));
+        ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofMegabytes(4));
+
+        assertThrows(IllegalStateException.class, () -> s3Service.validateMultipartSettings());
+    }
+
+    @Test
+    void validateMultipartSettings_WithPartsLargerThanTheThreshold_ShouldFailAtStartup() {
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofMegabytes(8));
+        ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofMegabytes(16));
+
+        assertThrows(IllegalStateException.class, () -> s3Service.validateMultipartSettings());
+
+        ReflectionTestUtils.setField(s3Service, "multipartPartSize", DataSize.ofMegabytes(5));
+        assertDoesNotThrow(() -> s3Service.validateMultipartSettings());
+    }
+
+    @Test
+    void deleteImages_ShouldSendBatchesOfAtMostOneThousandKeysAndReturnErrors() {
+        List<String> keys = IntStream.range(0, 1500).mapToObj(i -> "image-" + i + ".jpg").toList();
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenReturn(DeleteObjectsResponse.builder()
+                        .errors(S3Error.builder().key("image-7.jpg").code("AccessDenied").message("denied").build())
+                        .build())
+                .thenReturn(DeleteObjectsResponse.builder().build());
+
+        Map<String, String> errors = s3Service.deleteImages(keys);
+
+        assertEquals(Map.of("image-7.jpg", "AccessDenied: denied"), errors);
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(requests.capture());
+        assertEquals(1000, requests.getAllValues().get(0).delete().objects().size());
+        assertEquals(500, requests.getAllValues().get(1).delete().objects().size());
+        assertEquals(1, meterRegistry.get("s3.delete").tag("outcome", "partial").timer().count());
+        assertEquals(1, meterRegistry.get("s3.delete").tag("outcome", "success").timer().count());
+    }
+}
@@ -0,0 +1,124 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.config.CacheConfig;
+import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.repository.ImageRepository;
+import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class VehicleCacheTest {
+
+    @MockitoBean
+    private VehicleRepository vehicleRepository;
+
+    @MockitoBean
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Vehicle testVehicle;
+    private UUID testVehicleId;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.VEHICLES_CACHE).clear();
+
+        testVehicleId = UUID.randomUUID();
+        testVehicle = new Vehicle();
+        testVehicle.setId(testVehicleId);
+        testVehicle.setName("Polo");
+        testVehicle.setModel("GTI");
+        testVehicle.setModelYear(2024);
+        testVehicle.setPrice(new BigDecimal("50000.00"));
+
+        when(vehicleRepository.findById(testVehicleId)).thenReturn(Optional.of(testVehicle));
+        when(vehicleRepository.findDetailsById(testVehicleId)).thenReturn(Optional.of(new VehicleDetails(
+                testVehicleId, "Polo", "GTI", null, null, 2024, null, null,
+                new BigDecimal("50000.00"), null, null)));
+        when(imageRepository.findResponsesByVehicleId(testVehicleId)).thenReturn(List.of());
+    }
+
+    @Test
+    void getById_ShouldServeRepeatedReadsFromCache() {
+        double hitsBefore = cacheGets("hit");
+
+        vehicleService.getById(testVehicleId.toString());
+        vehicleService.getById(testVehicleId.toString().toUpperCase());
+
+        verify(vehicleRepository, times(1)).findDetailsById(testVehicleId);
+        verify(imageRepository, times(1)).findResponsesByVehicleId(testVehicleId);
+        assertEquals(hitsBefore + 1, cacheGets("hit"));
+    }
+
+    @Test
+    void update_ShouldEvictCachedVehicle() {
+        when(vehicleRepository.save(any(Vehicle.class))).thenReturn(testVehicle);
+        vehicleService.getById(testVehicleId.toString());
+
+        vehicleService.update(testVehicle);
+        vehicleService.getById(testVehicleId.toString());
+
+        verify(imageRepository, times(2)).findResponsesByVehicleId(testVehicleId);
+    }
+
+    @Test
+    void deleteById_ShouldEvictCachedVehicle() {
+        when(vehicleRepository.findIdsByIdInForUpdate(List.of(testVehicleId))).thenReturn(List.of(testVehicleId));
+        vehicleService.getById(testVehicleId.toString());
+
+        vehicleService.deleteById(testVehicleId.toString());
+
+        assertNull(cacheManager.getCache(CacheConfig.VEHICLES_CACHE).get(testVehicleId));
+    }
+
+    @Test
+    void imageDeletion_ShouldEvictCachedVehicle() {
+        UUID imageId = UUID.randomUUID();
+        Image image = new Image();
+        image.setId(imageId);
+        image.setS3Key("golf.jpg");
+        image.setVehicle(testVehicle);
+        when(imageRepository.findById(imageId)).thenReturn(Optional.of(image));
+        vehicleService.getById(testVehicleId.toString());
+
+        imageService.deleteById(imageId.toString());
+
+        assertNull(cacheManager.getCache(CacheConfig.VEHICLES_CACHE).get(testVehicleId));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.VEHICLES_CACHE)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
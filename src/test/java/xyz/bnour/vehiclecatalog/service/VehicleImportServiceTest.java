@@ -0,0 +1,157 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.response.VehicleImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleImportServiceTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VehicleImportService vehicleImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        vehicleImportService = new VehicleImportService(vehicleRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionTemplate, new ObjectMapper(),
+                meterRegistry);
+        ReflectionTestUtils.setField(vehicleImportService, "batchSize", 2);
+        ReflectionTestUtils.setField(vehicleImportService, "maxReportedErrors", 10);
+
+        lenient().doAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importVehicles_FromNdjson_ShouldInsertValidRowsInBatchesAndReportInvalidOnes() {
+        String body = """
+                {"name":"Golf","model":"GTI","modelYear":2024,"price":35000.00}
+                {"name":"","model":"GTI","modelYear":2024,"price":-1}
+
+                {"name":"Polo","model":"GTI","modelYear":2023,"price":28000.00,"horsepower":207}
+                {"name":"Passat",
+                {"name":"Tiguan","model":"R","modelYear":2024,"price":52000.00}
+                """;
+
+        VehicleImportReport report = vehicleImportService.importVehicles(stream(body), VehicleImportService.Format.NDJSON);
+
+        ArgumentCaptor<List<Vehicle>> batches = ArgumentCaptor.forClass(List.class);
+        verify(vehicleRepository, times(2)).insertAll(batches.capture());
+        assertEquals(List.of("Golf", "Polo"), batches.getAllValues().get(0).stream().map(Vehicle::getName).toList());
+        assertEquals(List.of("Tiguan"), batches.getAllValues().get(1).stream().map(Vehicle::getName).toList());
+        assertEquals(207, batches.getAllValues().get(0).get(1).getHorsepower());
+
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertFalse(report.isErrorsTruncated());
+        assertEquals(List.of(2L, 5L), report.getErrors().stream().map(VehicleImportReport.RowError::getLine).toList());
+        assertEquals("name: must not be blank; price: must be greater than 0", report.getErrors().get(0).getMessage());
+        assertEquals(3, meterRegistry.get("vehicle.import.rows").tag("result", "imported").counter().count());
+        assertEquals(2, meterRegistry.get("vehicle.import.rows").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importVehicles_FromCsv_ShouldMapColumnsByHeaderAndKeepGoingAfterBadRows() {
+        String body = """
+                price,modelYear,name,model,horsepower
+                35000.00,2024,Golf,GTI,
+                abc,2024,Polo,GTI,207
+                "28000.00",2023,"Polo, 5 doors",GTI,207
+                """;
+
+        VehicleImportReport report = vehicleImportService.importVehicles(stream(body), VehicleImportService.Format.CSV);
+
+        ArgumentCaptor<List<Vehicle>> batches = ArgumentCaptor.forClass(List.class);
+        verify(vehicleRepository).insertAll(batches.capture());
+        List<Vehicle> vehicles = batches.getValue();
+        assertEquals(List.of("Golf", "Polo, 5 doors"), vehicles.stream().map(Vehicle::getName).toList());
+        assertNull(vehicles.get(0).getHorsepower());
+        assertEquals(new BigDecimal("28000.00"), vehicles.get(1).getPrice());
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void importVehicles_FromCsvWithUnknownColumn_ShouldFailBeforeInserting() {
+        String body = """
+                name,model,modelYear,price,colour
+                Golf,GTI,2024,35000.00,red
+                """;
+
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleImportService.importVehicles(stream(body), VehicleImportService.Format.CSV));
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void importVehicles_WhenBatchIsRejected_ShouldRetryRowsOneByOne() {
+        String body = """
+                {"name":"Golf","model":"GTI","modelYear":2024,"price":35000.00}
+                {"name":"Polo","model":"GTI","modelYear":2024,"price":99999999999.00}
+                """;
+        doThrow(new DataIntegrityViolationException("Value too long")).when(vehicleRepository).insertAll(
+                argThat(vehicles -> vehicles.stream().anyMatch(vehicle -> vehicle.getName().equals("Polo"))));
+
+        VehicleImportReport report = vehicleImportService.importVehicles(stream(body), VehicleImportService.Format.NDJSON);
+
+        verify(vehicleRepository, times(3)).insertAll(anyList());
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void importVehicles_WithMoreErrorsThanReported_ShouldCountAllAndTruncateTheList() {
+        ReflectionTestUtils.setField(vehicleImportService, "maxReportedErrors", 2);
+        String body = "{\"name\":\"Golf\"}\n".repeat(5);
+
+        VehicleImportReport report = vehicleImportService.importVehicles(stream(body), VehicleImportService.Format.NDJSON);
+
+        assertEquals(0, report.getImported());
+        assertEquals(5, report.getFailed());
+        assertEquals(2, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,178 @@
+package xyz.bnour.vehiclecatalog.service;
+
+import xyz.bnour.vehiclecatalog.entity.Image;
+import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.request.VehicleBulkUpdate;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.request.VehiclePatch;
+import xyz.bnour.vehiclecatalog.request.VehicleSelection;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.VehicleBulkResult;
+import xyz.bnour.vehiclecatalog.response.VehicleResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the listing against N+1 regressions by counting the JDBC statements Hibernate prepares.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "xyz.bnour.vehicle-catalog.export.batch-size=" + VehicleServiceQueryCountTest.EXPORT_BATCH_SIZE
+})
+@Import(VehicleService.class)
+class VehicleServiceQueryCountTest {
+    static final int EXPORT_BATCH_SIZE = 8;
+    private static final int NUM_OF_VEHICLES = 30;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private ImageUrlService imageUrlService;
+
+    @MockitoBean
+    private S3CleanupService s3CleanupService;
+
+    private Statistics statistics;
+    private List<UUID> vehicleIds;
+
+    @BeforeEach
+    void setUp() {
+        vehicleIds = new ArrayList<>();
+        for (int i = 0; i < NUM_OF_VEHICLES; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setName("Passat " + i);
+            vehicle.setModel("Variant");
+            vehicle.setModelYear(2024);
+            vehicle.setPrice(new BigDecimal("45000.00"));
+            entityManager.persist(vehicle);
+            vehicleIds.add(vehicle.getId());
+
+            for (int j = 0; j < 2; j++) {
+                Image image = new Image();
+                image.setVehicle(vehicle);
+                image.setS3Key("passat-" + i + "-" + j + ".jpg");
+                entityManager.persist(image);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        when(imageUrlService.withUrl(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(imageUrlService.withUrls(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAll_ShouldIssueOneQueryForVehiclesAndOneForImages() {
+        PageResponse<VehicleResponse> page = vehicleService.getAll(new VehicleFilter(), null, null, 100);
+
+        assertEquals(NUM_OF_VEHICLES, page.getItems().size());
+        page.getItems().forEach(vehicle -> assertEquals(2, vehicle.getImages().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getAll_ShouldIssueTwoQueriesPerPage() {
+        PageResponse<VehicleResponse> page = vehicleService.getAll(new VehicleFilter(), null, null, 10);
+        int pages = 1;
+        while (page.getNextPageToken() != null) {
+            page = vehicleService.getAll(new VehicleFilter(), null, page.getNextPageToken(), 10);
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(2L * pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void exportAll_ShouldIssueOneCursorQueryAndOneImageQueryPerBatch() {
+        List<VehicleResponse> exported = new ArrayList<>();
+
+        long count = vehicleService.exportAll(exported::add);
+
+        assertEquals(NUM_OF_VEHICLES, count);
+        exported.forEach(vehicle -> assertEquals(2, vehicle.getImages().size()));
+        assertEquals(1 + (NUM_OF_VEHICLES + EXPORT_BATCH_SIZE - 1) / EXPORT_BATCH_SIZE, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void deleteAll_ByFilter_ShouldUseSetBasedStatements() {
+        VehicleFilter filter = new VehicleFilter();
+        filter.setMinModelYear(2024);
+
+        VehicleBulkResult result = vehicleService.deleteAll(new VehicleSelection(null, filter));
+
+        assertEquals(NUM_OF_VEHICLES, result.getVehicles());
+        assertEquals(2L * NUM_OF_VEHICLES, result.getImages());
+        // Lock the ids, read the image keys, delete the images, delete the vehicles
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        verify(s3CleanupService).scheduleDeletion(argThat(s3Keys -> s3Keys.size() == 2 * NUM_OF_VEHICLES));
+        assertEquals(0L, entityManager.getEntityManager().createQuery("select count(v) from Vehicle v").getSingleResult());
+    }
+
+    @Test
+    void updateAll_WithPriceChange_ShouldLockAndUpdateInTwoStatements() {
+        VehiclePatch patch = new VehiclePatch();
+        patch.setPriceChangePercent(new BigDecimal("-12.5"));
+        patch.setDrivetrain("AWD");
+
+        VehicleBulkResult result = vehicleService.updateAll(
+                new VehicleBulkUpdate(new VehicleSelection(vehicleIds.subList(0, 3), null), patch));
+
+        assertEquals(3, result.getVehicles());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        entityManager.clear();
+        Vehicle updated = entityManager.find(Vehicle.class, vehicleIds.get(0));
+        assertEquals(0, new BigDecimal("39375.00").compareTo(updated.getPrice()));
+        assertEquals("AWD", updated.getDrivetrain());
+        assertNull(entityManager.find(Vehicle.class, vehicleIds.get(3)).getDrivetrain());
+    }
+
+    @Test
+    void updateAll_WithSteepDiscountOnCheapVehicle_ShouldKeepThePricePositive() {
+        Vehicle cheap = entityManager.find(Vehicle.class, vehicleIds.get(0));
+        cheap.setPrice(new BigDecimal("10.00"));
+        entityManager.flush();
+        VehiclePatch patch = new VehiclePatch();
+        patch.setPriceChangePercent(new BigDecimal("-99.99"));
+
+        vehicleService.updateAll(new VehicleBulkUpdate(new VehicleSelection(vehicleIds.subList(0, 2), null), patch));
+
+        entityManager.clear();
+        // 10.00 would round to 0.00, 45000.00 becomes 4.50
+        assertEquals(0, new BigDecimal("0.01").compareTo(entityManager.find(Vehicle.class, vehicleIds.get(0)).getPrice()));
+        assertEquals(0, new BigDecimal("4.50").compareTo(entityManager.find(Vehicle.class, vehicleIds.get(1)).getPrice()));
+    }
+}
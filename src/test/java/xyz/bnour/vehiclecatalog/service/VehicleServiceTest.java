@@ -1,26 +1,44 @@
 package xyz.bnour.vehiclecatalog.service;
 
-import xyz.bnour.vehiclecatalog.entity.Image;
 import xyz.bnour.vehiclecatalog.entity.Vehicle;
+import xyz.bnour.vehiclecatalog.pagination.OffsetPageToken;
+import xyz.bnour.vehiclecatalog.pagination.VehicleCursor;
+import xyz.bnour.vehiclecatalog.pagination.VehicleSort;
 import xyz.bnour.vehiclecatalog.repository.ImageRepository;
 import xyz.bnour.vehiclecatalog.repository.VehicleRepository;
+import xyz.bnour.vehiclecatalog.request.VehicleBulkUpdate;
+import xyz.bnour.vehiclecatalog.request.VehicleFilter;
+import xyz.bnour.vehiclecatalog.request.VehiclePatch;
+import xyz.bnour.vehiclecatalog.request.VehicleSelection;
+import xyz.bnour.vehiclecatalog.response.ImageResponse;
+import xyz.bnour.vehiclecatalog.response.PageResponse;
+import xyz.bnour.vehiclecatalog.response.VehicleBulkResult;
+import xyz.bnour.vehiclecatalog.response.VehicleDetails;
 import xyz.bnour.vehiclecatalog.response.VehicleResponse;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,15 +50,29 @@ class VehicleServiceTest {
     @Mock
     private ImageRepository imageRepository;
 
+    @Mock
+    private ImageUrlService imageUrlService;
+
+    @Mock
+    private S3CleanupService s3CleanupService;
+
     @InjectMocks
     private VehicleService vehicleService;
 
     private Vehicle testVehicle;
+    private VehicleDetails testVehicleDetails;
     private UUID testVehicleId;
 
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(vehicleService, "maxNumberOfImagesPerVehicle", 2);
+        lenient().when(imageUrlService.withUrl(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(imageUrlService.withUrls(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ReflectionTestUtils.setField(vehicleService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(vehicleService, "maxPageSize", 100);
+        ReflectionTestUtils.setField(vehicleService, "exportBatchSize", 2);
+        ReflectionTestUtils.setField(vehicleService, "bulkMaxVehicles", 3);
+        ReflectionTestUtils.setField(vehicleService, "bulkBatchSize", 2);
         
         testVehicleId = UUID.randomUUID();
         testVehicle = new Vehicle();
@@ -50,45 +82,156 @@ class VehicleServiceTest {
         testVehicle.setModelYear(2024);
         testVehicle.setPrice(new BigDecimal("50000.00"));
         testVehicle.setHorsepower(200);
+
+        testVehicleDetails = detailsOf(testVehicleId, LocalDateTime.of(2025, 1, 15, 10, 30));
     }
 
     @Test
     void getAll_ShouldReturnVehicleResponseList() {
-        List<Vehicle> vehicles = List.of(testVehicle);
-        List<Image> images = List.of();
+        List<VehicleDetails> vehicles = List.of(testVehicleDetails);
+        List<ImageResponse> images = List.of();
         
-        when(vehicleRepository.findAll()).thenReturn(vehicles);
-        when(imageRepository.findAllByVehicleId(testVehicleId)).thenReturn(images);
+        when(vehicleRepository.findPage(any(), eq(VehicleSort.DEFAULT), eq(Limit.of(21)))).thenReturn(vehicles);
+        when(imageRepository.findResponsesByVehicleIdIn(List.of(testVehicleId))).thenReturn(images);
 
-        List<VehicleResponse> result = vehicleService.getAll();
+        PageResponse<VehicleResponse> result = vehicleService.getAll(new VehicleFilter(), null, null, null);
 
-        assertEquals(1, result.size());
-        assertEquals("Polo", result.get(0).getVehicle().getName());
-        assertEquals(0, result.get(0).getImages().size());
+        assertEquals(1, result.getItems().size());
+        assertEquals("Polo", result.getItems().get(0).getVehicle().getName());
+        assertEquals(0, result.getItems().get(0).getImages().size());
+        assertNull(result.getNextPageToken());
         
-        verify(vehicleRepository).findAll();
-        verify(imageRepository).findAllByVehicleId(testVehicleId);
+        verify(vehicleRepository).findPage(any(), eq(VehicleSort.DEFAULT), eq(Limit.of(21)));
+        verify(imageRepository).findResponsesByVehicleIdIn(List.of(testVehicleId));
+        verify(imageRepository, never()).findResponsesByVehicleId(any());
+    }
+
+    @Test
+    void getAll_WithMoreVehiclesThanPageSize_ShouldReturnNextPageToken() {
+        VehicleDetails olderVehicle = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt().minusDays(1));
+
+        when(vehicleRepository.findPage(any(), eq(VehicleSort.DEFAULT), eq(Limit.of(2))))
+                .thenReturn(List.of(testVehicleDetails, olderVehicle));
+        when(imageRepository.findResponsesByVehicleIdIn(List.of(testVehicleId))).thenReturn(List.of());
+
+        PageResponse<VehicleResponse> result = vehicleService.getAll(new VehicleFilter(), null, null, 1);
+
+        assertEquals(1, result.getItems().size());
+        VehicleCursor cursor = VehicleCursor.decode(result.getNextPageToken(), VehicleSort.DEFAULT);
+        assertEquals(testVehicleId, cursor.getId());
+        assertEquals(testVehicleDetails.getCreatedAt(), cursor.getValue());
+        verify(imageRepository).findResponsesByVehicleIdIn(List.of(testVehicleId));
+    }
+
+    @Test
+    void getAll_SortedByPrice_ShouldIssuePriceCursor() {
+        VehicleSort byPrice = new VehicleSort(VehicleSort.Field.PRICE, Sort.Direction.ASC);
+        VehicleDetails pricierVehicle = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt());
+
+        when(vehicleRepository.findPage(any(), eq(byPrice), eq(Limit.of(2))))
+                .thenReturn(List.of(testVehicleDetails, pricierVehicle));
+
+        PageResponse<VehicleResponse> result = vehicleService.getAll(new VehicleFilter(), "price,asc", null, 1);
+
+        VehicleCursor cursor = VehicleCursor.decode(result.getNextPageToken(), byPrice);
+        assertEquals(new BigDecimal("50000.00"), cursor.getValue());
+        assertEquals(testVehicleId, cursor.getId());
+    }
+
+    @Test
+    void getAll_SortedByFieldWithoutDirection_ShouldUseTheFieldDefault() {
+        when(vehicleRepository.findPage(any(), any(), eq(Limit.of(21)))).thenReturn(List.of());
+
+        vehicleService.getAll(new VehicleFilter(), "createdAt", null, null);
+        vehicleService.getAll(new VehicleFilter(), "price", null, null);
+
+        verify(vehicleRepository).findPage(any(), eq(VehicleSort.DEFAULT), eq(Limit.of(21)));
+        verify(vehicleRepository).findPage(any(),
+                eq(new VehicleSort(VehicleSort.Field.PRICE, Sort.Direction.ASC)), eq(Limit.of(21)));
+    }
+
+    @Test
+    void getAll_WithPageTokenForAnotherSort_ShouldThrowException() {
+        String createdAtToken = VehicleCursor.after(VehicleSort.DEFAULT, testVehicleDetails).encode();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.getAll(new VehicleFilter(), "price,desc", createdAtToken, null));
+        verify(vehicleRepository, never()).findPage(any(), any(), any());
+    }
+
+    @Test
+    void getAll_WithUnknownSortField_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.getAll(new VehicleFilter(), "name,asc", null, null));
+    }
+
+    @Test
+    void getAll_WithPageToken_ShouldContinueAfterCursor() {
+        VehicleCursor cursor = VehicleCursor.after(VehicleSort.DEFAULT, testVehicleDetails);
+
+        when(vehicleRepository.findPage(any(), eq(VehicleSort.DEFAULT), eq(Limit.of(21)))).thenReturn(List.of());
+
+        PageResponse<VehicleResponse> result = vehicleService.getAll(new VehicleFilter(), null, cursor.encode(), null);
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextPageToken());
+    }
+
+    @Test
+    void getAll_WithPageSizeAboveMax_ShouldClampToMax() {
+        when(vehicleRepository.findPage(any(), any(), eq(Limit.of(101)))).thenReturn(List.of());
+
+        vehicleService.getAll(new VehicleFilter(), null, null, 5000);
+
+        verify(vehicleRepository).findPage(any(), any(), eq(Limit.of(101)));
+    }
+
+    @Test
+    void getAll_WithInvalidPageToken_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.getAll(new VehicleFilter(), null, "not-a-token", null));
+    }
+
+    @Test
+    void exportAll_ShouldFetchImagesOncePerBatch() {
+        VehicleDetails second = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt());
+        VehicleDetails third = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt());
+        ImageResponse thirdImage = imageOf(third.getId());
+
+        when(vehicleRepository.streamAll()).thenReturn(Stream.of(testVehicleDetails, second, third));
+        when(imageRepository.findResponsesByVehicleIdIn(List.of(testVehicleId, second.getId()))).thenReturn(List.of());
+        when(imageRepository.findResponsesByVehicleIdIn(List.of(third.getId()))).thenReturn(List.of(thirdImage));
+
+        List<VehicleResponse> exported = new ArrayList<>();
+        long count = vehicleService.exportAll(exported::add);
+
+        assertEquals(3, count);
+        assertEquals(List.of(testVehicleId, second.getId(), third.getId()),
+                exported.stream().map(response -> response.getVehicle().getId()).toList());
+        assertEquals(List.of(thirdImage), exported.get(2).getImages());
+        verify(imageRepository, times(2)).findResponsesByVehicleIdIn(any());
     }
 
     @Test
     void getById_WithValidId_ShouldReturnVehicleResponse() {
         String vehicleIdStr = testVehicleId.toString();
-        List<Image> images = List.of();
+        List<ImageResponse> images = List.of();
         
-        when(vehicleRepository.findById(testVehicleId)).thenReturn(Optional.of(testVehicle));
-        when(imageRepository.findAllByVehicleId(testVehicleId)).thenReturn(images);
+        when(vehicleRepository.findDetailsById(testVehicleId)).thenReturn(Optional.of(testVehicleDetails));
+        when(imageRepository.findResponsesByVehicleId(testVehicleId)).thenReturn(images);
 
         VehicleResponse result = vehicleService.getById(vehicleIdStr);
 
         assertNotNull(result);
         assertEquals("Polo", result.getVehicle().getName());
         assertEquals("GTI", result.getVehicle().getModel());
+        verify(vehicleRepository, never()).findById(any());
     }
 
     @Test
     void getById_WithInvalidId_ShouldThrowException() {
         String invalidId = UUID.randomUUID().toString();
-        when(vehicleRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(vehicleRepository.findDetailsById(any(UUID.class))).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(
             EntityNotFoundException.class,
@@ -130,18 +273,67 @@ class VehicleServiceTest {
     @Test
     void deleteById_WithValidId_ShouldCallRepository() {
         String vehicleIdStr = testVehicleId.toString();
-        when(vehicleRepository.existsById(testVehicleId)).thenReturn(true);
+        when(vehicleRepository.findIdsByIdInForUpdate(List.of(testVehicleId))).thenReturn(List.of(testVehicleId));
+        when(imageRepository.findS3KeysByVehicleIdIn(List.of(testVehicleId))).thenReturn(List.of("front.jpg", "back.jpg"));
 
         vehicleService.deleteById(vehicleIdStr);
 
-        verify(vehicleRepository).existsById(testVehicleId);
-        verify(vehicleRepository).deleteById(testVehicleId);
+        // The vehicle row is locked before its image keys are read
+        InOrder inOrder = inOrder(vehicleRepository, imageRepository);
+        inOrder.verify(vehicleRepository).findIdsByIdInForUpdate(List.of(testVehicleId));
+        inOrder.verify(imageRepository).findS3KeysByVehicleIdIn(List.of(testVehicleId));
+        verify(vehicleRepository, never()).existsById(any());
+        verify(imageRepository).deleteAllByVehicleIdIn(List.of(testVehicleId));
+        verify(vehicleRepository).deleteAllByIdIn(List.of(testVehicleId));
+        verify(s3CleanupService).scheduleDeletion(List.of("front.jpg", "back.jpg"));
+    }
+
+    @Test
+    void deleteAll_ByIds_ShouldDeleteInChunksAndScheduleAllKeys() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(vehicleRepository.findIdsByIdInForUpdate(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(imageRepository.findS3KeysByVehicleIdIn(ids.subList(0, 2))).thenReturn(List.of("a.jpg", "b.jpg"));
+        when(imageRepository.findS3KeysByVehicleIdIn(ids.subList(2, 3))).thenReturn(List.of("c.jpg"));
+        when(imageRepository.deleteAllByVehicleIdIn(anyList())).thenReturn(2, 1);
+
+        VehicleBulkResult result = vehicleService.deleteAll(new VehicleSelection(ids, null));
+
+        assertEquals(3, result.getVehicles());
+        assertEquals(3, result.getImages());
+        verify(vehicleRepository).deleteAllByIdIn(ids.subList(0, 2));
+        verify(vehicleRepository).deleteAllByIdIn(ids.subList(2, 3));
+        verify(s3CleanupService).scheduleDeletion(List.of("a.jpg", "b.jpg", "c.jpg"));
+    }
+
+    @Test
+    void deleteAll_WithUnrestrictedFilterOrTooManyIds_ShouldThrowException() {
+        List<UUID> tooMany = Stream.generate(UUID::randomUUID).limit(4).toList();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.deleteAll(new VehicleSelection(null, new VehicleFilter())));
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.deleteAll(new VehicleSelection(tooMany, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.deleteAll(new VehicleSelection(List.of(testVehicleId), new VehicleFilter())));
+        verify(vehicleRepository, never()).deleteAllByIdIn(anyList());
+        verifyNoInteractions(s3CleanupService);
+    }
+
+    @Test
+    void updateAll_WithPriceAndPriceChange_ShouldThrowException() {
+        VehiclePatch patch = new VehiclePatch();
+        patch.setPrice(new BigDecimal("30000.00"));
+        patch.setPriceChangePercent(new BigDecimal("-10"));
+
+        assertThrows(IllegalArgumentException.class, () -> vehicleService.updateAll(
+                new VehicleBulkUpdate(new VehicleSelection(List.of(testVehicleId), null), patch)));
+        verify(vehicleRepository, never()).updateAll(anyList(), any());
     }
 
     @Test
     void deleteById_WithInvalidId_ShouldThrowException() {
         String invalidId = UUID.randomUUID().toString();
-        when(vehicleRepository.existsById(any(UUID.class))).thenReturn(false);
+        when(vehicleRepository.findIdsByIdInForUpdate(anyList())).thenReturn(List.of());
 
         EntityNotFoundException exception = assertThrows(
             EntityNotFoundException.class,
@@ -149,22 +341,55 @@ class VehicleServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Vehicle not found"));
-        verify(vehicleRepository, never()).deleteById(any(UUID.class));
+        verify(vehicleRepository, never()).deleteAllByIdIn(anyList());
+        verifyNoInteractions(s3CleanupService);
+    }
+
+    @Test
+    void search_ShouldKeepRankingOrderAndReturnNextPageToken() {
+        VehicleDetails secondMatch = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt());
+        VehicleDetails thirdMatch = detailsOf(UUID.randomUUID(), testVehicleDetails.getCreatedAt());
+        List<UUID> ranked = List.of(secondMatch.getId(), testVehicleId, thirdMatch.getId());
+
+        when(vehicleRepository.searchIds(List.of("polo", "gti"), 0, Limit.of(3))).thenReturn(ranked);
+        when(vehicleRepository.findDetailsByIdIn(ranked.subList(0, 2))).thenReturn(List.of(testVehicleDetails, secondMatch));
+
+        PageResponse<VehicleResponse> result = vehicleService.search("Polo-GTI", null, 2);
+
+        assertEquals(List.of(secondMatch.getId(), testVehicleId),
+                result.getItems().stream().map(vehicle -> vehicle.getVehicle().getId()).toList());
+        assertEquals(2, OffsetPageToken.decode(result.getNextPageToken()));
+    }
+
+    @Test
+    void search_WithoutWords_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> vehicleService.search(" -- ", null, null));
+        verify(vehicleRepository, never()).searchIds(any(), anyLong(), any());
     }
 
     @Test
     void getAll_WithImageLimitExceeded_ShouldThrowException() {
-        List<Vehicle> vehicles = List.of(testVehicle);
-        List<Image> tooManyImages = List.of(new Image(), new Image(), new Image());
+        List<VehicleDetails> vehicles = List.of(testVehicleDetails);
+        List<ImageResponse> tooManyImages = List.of(imageOf(testVehicleId), imageOf(testVehicleId), imageOf(testVehicleId));
         
-        when(vehicleRepository.findAll()).thenReturn(vehicles);
-        when(imageRepository.findAllByVehicleId(testVehicleId)).thenReturn(tooManyImages);
+        when(vehicleRepository.findPage(any(), any(), any())).thenReturn(vehicles);
+        when(imageRepository.findResponsesByVehicleIdIn(List.of(testVehicleId))).thenReturn(tooManyImages);
 
         RuntimeException exception = assertThrows(
             RuntimeException.class,
-            () -> vehicleService.getAll()
+            () -> vehicleService.getAll(new VehicleFilter(), null, null, null)
         );
         
         assertTrue(exception.getMessage().contains("exceeding limit"));
     }
+
+    private VehicleDetails detailsOf(UUID id, LocalDateTime createdAt) {
+        return new VehicleDetails(id, "Polo", "GTI", 200, null, 2024, null, null,
+                new BigDecimal("50000.00"), createdAt, createdAt);
+    }
+
+    private ImageResponse imageOf(UUID vehicleId) {
+        UUID imageId = UUID.randomUUID();
+        return new ImageResponse(imageId, imageId + ".jpg", vehicleId, null, null, null);
+    }
 }
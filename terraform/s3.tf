@@ -11,5 +11,24 @@ module "vehicle_catalog_images" {
     enabled = true
   }
 
+  # Browsers upload straight to the bucket with presigned PUTs
+  cors_rule = [
+    {
+      allowed_methods = ["PUT"]
+      allowed_origins = ["*"]
+      allowed_headers = ["content-type", "content-length"]
+      max_age_seconds = 3000
+    }
+  ]
+
+  lifecycle_rule = [
+    {
+      id      = "abort-incomplete-multipart-uploads"
+      enabled = true
+
+      abort_incomplete_multipart_upload_days = 1
+    }
+  ]
+
   force_destroy = true
 }